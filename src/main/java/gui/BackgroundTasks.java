@@ -0,0 +1,131 @@
+package gui;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the requests of a controller in the background and hands their results
+ * over to the JavaFX application thread, so that the GUI never waits for the
+ * server. <br>
+ * <br>
+ * Every task has a name, e.g. "flights". Starting a task cancels the running
+ * task with the same name, so the result of a request that was superseded,
+ * e.g. because the user clicked another flight, is never shown. Cancelling
+ * only drops the result: the request keeps running and its future is left
+ * alone, since a request that changes data may be executed by the server
+ * anyway. All methods must be called on the JavaFX application thread, and
+ * the callbacks are called there as well.
+ */
+public class BackgroundTasks {
+
+    private static final Logger logger = Logger.getLogger(BackgroundTasks.class.getName());
+
+    // only used on the JavaFX application thread
+    private final Map<String, CompletableFuture<?>> running = new HashMap<>();
+
+    /**
+     * Shows the result of a request once it arrived. If the request fails,
+     * the failure is only logged.
+     *
+     * @param name      the name of the task; a running task with the same name
+     *                  is cancelled
+     * @param request   the request, e.g. an async request of the REST client
+     * @param onSuccess called with the result of the request
+     */
+    public <T> void run(String name, CompletableFuture<T> request, Consumer<? super T> onSuccess) {
+        run(name, request, onSuccess, error -> {
+        });
+    }
+
+    /**
+     * Shows the result of a request once it arrived.
+     *
+     * @param name      the name of the task; a running task with the same name
+     *                  is cancelled
+     * @param request   the request, e.g. an async request of the REST client
+     * @param onSuccess called with the result of the request
+     * @param onFailure called with the cause if the request failed
+     */
+    public <T> void run(String name, CompletableFuture<T> request, Consumer<? super T> onSuccess,
+                        Consumer<Throwable> onFailure) {
+        cancel(name);
+        running.put(name, request);
+        request.whenComplete((result, error) -> Platform.runLater(() -> {
+            // superseded or cancelled meanwhile
+            if (running.get(name) != request) {
+                return;
+            }
+            running.remove(name);
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                logger.log(Level.WARNING, "Background task " + name + " failed", cause);
+                onFailure.accept(cause);
+            }
+        }));
+    }
+
+    /**
+     * @param name the name of the task
+     * @return <code>true</code> if the task with the name was started and its
+     * result was not shown yet
+     */
+    public boolean isRunning(String name) {
+        return running.containsKey(name);
+    }
+
+    /**
+     * Cancels the task with the name, so that its result is not shown.
+     *
+     * @param name the name of the task
+     */
+    public void cancel(String name) {
+        running.remove(name);
+    }
+
+    /**
+     * Cancels all running tasks, e.g. because their results cannot be shown
+     * anymore.
+     */
+    public void cancelAll() {
+        running.clear();
+    }
+
+    /**
+     * Cancels all running tasks once the node was removed from its scene,
+     * which happens when the navigator loads another layout in its place.
+     *
+     * @param node a node of the layout of the controller
+     */
+    public void cancelAllWhenRemoved(Node node) {
+        node.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                cancelAll();
+            }
+        });
+    }
+
+    /**
+     * Creates the placeholder of a list or table whose items are still
+     * loaded, or that has no items.
+     *
+     * @param text the text of the placeholder, e.g. "Loading flights ..."
+     * @return the placeholder
+     */
+    public static Label placeholder(String text) {
+        Label label = new Label(text);
+        label.setStyle("-fx-font-style: italic;");
+        return label;
+    }
+}
@@ -0,0 +1,191 @@
+package gui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The seats of one flight date that can be selected, shared by the seat
+ * selections of a reservation. <br>
+ * <br>
+ * The seats taken by other reservations and the seats selected in one of the
+ * views are kept in bit sets. Every view is the sorted list of seats one
+ * combo box offers: the free seats that are not selected in another view,
+ * plus its own selection. Selecting a seat in a view removes it from the other
+ * views and gives back the seat selected before, so a change touches one seat
+ * per view instead of rebuilding the lists. All methods must be called on the
+ * JavaFX application thread.
+ */
+public class SeatAvailability {
+
+    private final int seatCount;
+    // seats of the reservation that is changed; free for its owner although the server lists them as taken
+    private final BitSet ownSeats = new BitSet();
+    private final BitSet taken = new BitSet();
+    private final BitSet selected = new BitSet();
+    private final List<View> views = new ArrayList<>();
+
+    /**
+     * @param seatCount the number of seats of the flight, numbered from 1
+     * @param ownSeats  the seats of the reservation that is changed; can be
+     *                  <code>null</code>
+     */
+    public SeatAvailability(int seatCount, Collection<Integer> ownSeats) {
+        this.seatCount = seatCount;
+        if (ownSeats != null) {
+            ownSeats.forEach(this.ownSeats::set);
+        }
+    }
+
+    /**
+     * @param seat the seat number
+     * @return <code>true</code> if the seat is not taken by another
+     * reservation, whether it is selected or not
+     */
+    public boolean isFree(int seat) {
+        return seat >= 1 && seat <= seatCount && (!taken.get(seat) || ownSeats.get(seat));
+    }
+
+    /**
+     * Replaces the seats taken by other reservations and updates the views.
+     * Seats that were taken are removed from the views, except from the view
+     * that has them selected, which must be deselected by the caller.
+     *
+     * @param takenSeats the taken seats, where bit n is set if seat n is taken
+     */
+    public void setTaken(BitSet takenSeats) {
+        BitSet nowTaken = (BitSet) takenSeats.clone();
+        nowTaken.andNot(ownSeats);
+        BitSet wasTaken = (BitSet) taken.clone();
+        wasTaken.andNot(ownSeats);
+
+        BitSet newlyTaken = (BitSet) nowTaken.clone();
+        newlyTaken.andNot(wasTaken);
+        BitSet released = wasTaken;
+        released.andNot(nowTaken);
+
+        taken.clear();
+        taken.or(takenSeats);
+        for (int seat = newlyTaken.nextSetBit(1); seat >= 1 && seat <= seatCount;
+             seat = newlyTaken.nextSetBit(seat + 1)) {
+            for (View view : views) {
+                if (view.selectedSeat != seat) {
+                    view.remove(seat);
+                }
+            }
+        }
+        for (int seat = released.nextSetBit(1); seat >= 1 && seat <= seatCount;
+             seat = released.nextSetBit(seat + 1)) {
+            if (!selected.get(seat)) {
+                for (View view : views) {
+                    view.add(seat);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the view of another combo box, which offers all free seats that
+     * are not selected yet.
+     *
+     * @return the view
+     */
+    public View addView() {
+        List<Integer> seats = new ArrayList<>();
+        for (int seat = 1; seat <= seatCount; seat++) {
+            if (isFree(seat) && !selected.get(seat)) {
+                seats.add(seat);
+            }
+        }
+        View view = new View(FXCollections.observableArrayList(seats));
+        views.add(view);
+        return view;
+    }
+
+    /**
+     * Removes all views and their selections, e.g. because the number of
+     * seats to reserve changed.
+     */
+    public void clearViews() {
+        views.clear();
+        selected.clear();
+    }
+
+    private void select(View view, int seat) {
+        int previous = view.selectedSeat;
+        if (previous == seat) {
+            return;
+        }
+        view.selectedSeat = seat;
+        if (previous != 0) {
+            selected.clear(previous);
+            for (View other : views) {
+                if (isFree(previous)) {
+                    other.add(previous);
+                } else {
+                    // taken meanwhile, so not even the view that had it selected offers it anymore
+                    other.remove(previous);
+                }
+            }
+        }
+        if (seat != 0) {
+            selected.set(seat);
+            for (View other : views) {
+                if (other != view) {
+                    other.remove(seat);
+                }
+            }
+        }
+    }
+
+    /**
+     * The seats offered by one combo box.
+     */
+    public final class View {
+        private final ObservableList<Integer> seats;
+        // 0 if no seat is selected, since seats are numbered from 1
+        private int selectedSeat;
+
+        private View(ObservableList<Integer> seats) {
+            this.seats = seats;
+        }
+
+        /**
+         * @return the seats in ascending order; updated whenever a seat is
+         * selected in another view or taken by another reservation
+         */
+        public ObservableList<Integer> getSeats() {
+            return seats;
+        }
+
+        /**
+         * Selects the seat in this view, e.g. when the value of its combo box
+         * changed.
+         *
+         * @param seat the seat; <code>null</code> to deselect the seat
+         */
+        public void select(Integer seat) {
+            SeatAvailability.this.select(this, seat == null ? 0 : seat);
+        }
+
+        // keeps the list sorted with a binary search instead of sorting it again
+        private void add(int seat) {
+            int index = Collections.binarySearch(seats, seat);
+            if (index < 0) {
+                seats.add(-index - 1, seat);
+            }
+        }
+
+        private void remove(int seat) {
+            int index = Collections.binarySearch(seats, seat);
+            if (index >= 0) {
+                seats.remove(index);
+            }
+        }
+    }
+}
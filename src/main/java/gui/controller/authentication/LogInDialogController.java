@@ -1,6 +1,7 @@
 package gui.controller.authentication;
 
 import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
 import gui.controller.Controller;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
@@ -27,13 +28,16 @@ public class LogInDialogController extends Controller {
     @FXML
     private Label errorMessageLabel;
 
+    private final BackgroundTasks tasks = new BackgroundTasks();
+
     /**
      * Is called when the user clicks the log in button.<br>
      * <br>
      * Retrieves information from textfields and checks if the user is allowed to
      * log in. If the user is allowed to, the scene is changed and shows the user a
      * message for the successful log in. If the user is not allowed to log in an
-     * error message is displayed.
+     * error message is displayed. The credentials are checked in the
+     * background, so the dialog stays responsive while the server answers.
      */
     @FXML
     public void onLoginButtonClicked() {
@@ -42,32 +46,61 @@ public class LogInDialogController extends Controller {
         // check if given user entered email and password
         if (email.isEmpty() || password.isEmpty()) {
             errorMessageLabel.setText("All text fields must be filled out!");
-        } else if (!restClient.validClientCredentials(email, password)) {
+            return;
+        }
+        // ignore further clicks until the server answered
+        if (tasks.isRunning("login")) {
+            return;
+        }
+        errorMessageLabel.setText("Logging in ...");
+        tasks.run("login", restClient.validClientCredentialsAsync(email, password), valid -> {
             // check if given user credentials are correct
-            errorMessageLabel.setText("Invalid user data.");
-        } else {
+            if (!valid) {
+                errorMessageLabel.setText("Invalid user data.");
+                return;
+            }
             // create user and pass to RestClient (split up necessary because of
             // authorization)
             User user = new User(email, password);
             restClient.setUser(user);
-            JsonObject clientInfo = restClient.getUserInfoByMail(email);
-            user.setIdAndName(clientInfo.get("id").getAsInt(), clientInfo.get("firstName").getAsString(),
-                    clientInfo.get("lastName").getAsString());
-            user.setTokens(clientInfo.get("tokens").getAsInt());
+            tasks.run("login", restClient.getUserInfoByMailAsync(email), clientInfo -> logIn(user, clientInfo),
+                    error -> {
+                        restClient.setUser(null);
+                        errorMessageLabel.setText("The server could not be reached.");
+                    });
+        }, error -> errorMessageLabel.setText("The server could not be reached."));
+    }
+
+    /**
+     * Completes the user with the information of the server and shows the
+     * successful log in.
+     *
+     * @param user       the user who logged in
+     * @param clientInfo the information of the user; <code>null</code> if it
+     *                   could not be read
+     */
+    private void logIn(User user, JsonObject clientInfo) {
+        if (clientInfo == null) {
+            restClient.setUser(null);
+            errorMessageLabel.setText("The server could not be reached.");
+            return;
+        }
+        user.setIdAndName(clientInfo.get("id").getAsInt(), clientInfo.get("firstName").getAsString(),
+                clientInfo.get("lastName").getAsString());
+        user.setTokens(clientInfo.get("tokens").getAsInt());
 
-            // load main window and set panel to successful log in panel
-            sceneNavigator.loadCompleteWindow(sceneNavigator.MAIN_WINDOW,
-                    (Stage) emailTextfield.getScene().getWindow());
+        // load main window and set panel to successful log in panel
+        sceneNavigator.loadCompleteWindow(sceneNavigator.MAIN_WINDOW,
+                (Stage) emailTextfield.getScene().getWindow());
 
-            List<String> controllerData = new ArrayList<>();
-            controllerData.add("Welcome!");
-            controllerData.add("You are now successfully logged in.");
-            if (sceneNavigator.getPreviousScene() != null) {
-                controllerData.add("To reservation");
-            }
-            sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
-            sceneNavigator.loadToolBar(sceneNavigator.LOG_OUT_BAR);
+        List<String> controllerData = new ArrayList<>();
+        controllerData.add("Welcome!");
+        controllerData.add("You are now successfully logged in.");
+        if (sceneNavigator.getPreviousScene() != null) {
+            controllerData.add("To reservation");
         }
+        sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
+        sceneNavigator.loadToolBar(sceneNavigator.LOG_OUT_BAR);
     }
 
     /**
@@ -82,6 +115,11 @@ public class LogInDialogController extends Controller {
      */
     @FXML
     public void onCancelButtonClicked() {
+        // a log in that is still running must not open the main window again
+        if (tasks.isRunning("login")) {
+            tasks.cancelAll();
+            restClient.setUser(null);
+        }
         sceneNavigator.loadCompleteWindow(sceneNavigator.MAIN_WINDOW, (Stage) emailTextfield.getScene().getWindow());
         sceneNavigator.loadToolBar(sceneNavigator.LOG_IN_BAR);
 
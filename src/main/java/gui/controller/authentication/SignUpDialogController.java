@@ -1,6 +1,7 @@
 package gui.controller.authentication;
 
 import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
 import gui.controller.Controller;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -37,6 +38,8 @@ public class SignUpDialogController extends Controller implements Initializable
     @FXML
     private Label errorMessageLabel;
 
+    private final BackgroundTasks tasks = new BackgroundTasks();
+
     /**
      * Is called when the user clicks the sign up button. <br>
      * <br>
@@ -44,7 +47,8 @@ public class SignUpDialogController extends Controller implements Initializable
      * the input are met. This also includes the attempt to create the user, as it
      * might be possible that the given email is already taken. If the new user
      * could be created, the scene is change to the MainWindow and a message is
-     * displayed that the sign up was successful.
+     * displayed that the sign up was successful. The user is created in the
+     * background, so the dialog stays responsive while the server answers.
      */
     @FXML
     public void onSignupButtonClicked() {
@@ -68,29 +72,55 @@ public class SignUpDialogController extends Controller implements Initializable
             errorMessageLabel.setText("The password must contain at least 8 characters.");
         } else if (!password.equals(passwordRepeat)) {
             errorMessageLabel.setText("The passwords do not correspond to each other.");
-        } else if (!restClient.createNewUser(firstname, lastname, email, password)) {
-            errorMessageLabel.setText("E-mail address is already taken.");
-        } else { // customer could be created successfully
-            // create user and pass to RestClient (split up necessary because of
-            // authorization)
-            User user = new User(firstname, lastname, email, password);
-            restClient.setUser(user);
-            JsonObject clientInfo = restClient.getUserInfoByMail(email);
-            user.setId(clientInfo.get("id").getAsInt());
+        } else if (!tasks.isRunning("signup")) { // ignore further clicks until the server answered
+            errorMessageLabel.setText("Signing up ...");
+            tasks.run("signup", restClient.createNewUserAsync(firstname, lastname, email, password), created -> {
+                if (!created) {
+                    errorMessageLabel.setText("E-mail address is already taken.");
+                    return;
+                }
+                // customer could be created successfully
+                // create user and pass to RestClient (split up necessary because of
+                // authorization)
+                User user = new User(firstname, lastname, email, password);
+                restClient.setUser(user);
+                tasks.run("signup", restClient.getUserInfoByMailAsync(email), clientInfo -> signUp(user, clientInfo),
+                        error -> {
+                            restClient.setUser(null);
+                            errorMessageLabel.setText("The server could not be reached.");
+                        });
+            }, error -> errorMessageLabel.setText("The server could not be reached."));
+        }
+    }
 
-            // load main window and set panel to successful sign up panel
-            sceneNavigator.loadCompleteWindow(sceneNavigator.MAIN_WINDOW,
-                    (Stage) emailTextField.getScene().getWindow());
+    /**
+     * Completes the new user with the id given by the server and shows the
+     * successful sign up.
+     *
+     * @param user       the user who signed up
+     * @param clientInfo the information of the user; <code>null</code> if it
+     *                   could not be read
+     */
+    private void signUp(User user, JsonObject clientInfo) {
+        if (clientInfo == null) {
+            restClient.setUser(null);
+            errorMessageLabel.setText("The server could not be reached.");
+            return;
+        }
+        user.setId(clientInfo.get("id").getAsInt());
+
+        // load main window and set panel to successful sign up panel
+        sceneNavigator.loadCompleteWindow(sceneNavigator.MAIN_WINDOW,
+                (Stage) emailTextField.getScene().getWindow());
 
-            List<String> controllerData = new ArrayList<>();
-            controllerData.add("Welcome!");
-            controllerData.add("You are now successfully registered.");
-            if (sceneNavigator.getPreviousScene() != null) {
-                controllerData.add("To reservation");
-            }
-            sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
-            sceneNavigator.loadToolBar(sceneNavigator.LOG_OUT_BAR);
+        List<String> controllerData = new ArrayList<>();
+        controllerData.add("Welcome!");
+        controllerData.add("You are now successfully registered.");
+        if (sceneNavigator.getPreviousScene() != null) {
+            controllerData.add("To reservation");
         }
+        sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
+        sceneNavigator.loadToolBar(sceneNavigator.LOG_OUT_BAR);
     }
 
     /**
@@ -105,6 +135,11 @@ public class SignUpDialogController extends Controller implements Initializable
      */
     @FXML
     public void onCancelButtonClicked() {
+        // a sign up that is still running must not open the main window again
+        if (tasks.isRunning("signup")) {
+            tasks.cancelAll();
+            restClient.setUser(null);
+        }
         sceneNavigator.loadCompleteWindow(sceneNavigator.MAIN_WINDOW, (Stage) emailTextField.getScene().getWindow());
         sceneNavigator.loadToolBar(sceneNavigator.LOG_IN_BAR);
 
@@ -1,45 +1,50 @@
 package gui.controller.dialog;
 
 import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
 import gui.controller.Controller;
 import javafx.fxml.FXML;
 import javafx.scene.control.DateCell;
 import javafx.scene.control.DatePicker;
 import javafx.stage.Stage;
+import utils.Utils;
 
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class DateFilterPopupController extends Controller {
 
     @FXML
     private DatePicker datePicker;
 
+    private final BackgroundTasks tasks = new BackgroundTasks();
+
     /**
      * Initializes scene data with the given data list.
      * This method is used to initialize the scene with specific data, such as setting the date picker value and highlighting available dates.
+     * The available dates are loaded in the background and highlighted once they arrived.
      * 
      * @param data A list of data of any type, used for scene initialization.
      */
     @Override
     public <T> void initializeSceneData(List<T> data) {
-        System.out.println("Initializing scene data...");
-        
         // Initialize with current date
         datePicker.setValue(LocalDate.now());
     
-        // Get available dates from server and highlight them
-        List<JsonObject> datesWithFlights = restClient.requestUniqueDates();
-        if (datesWithFlights == null || datesWithFlights.isEmpty()) {
-            System.out.println("Warning: No dates returned from server");
-            return;
-        }
-        addDatePickerHighlighting(datePicker, datesWithFlights);
+        // Get available dates from server in the background and highlight them
+        tasks.run("dates", restClient.requestUniqueDatesAsync(), datesWithFlights -> {
+            if (datesWithFlights != null && !datesWithFlights.isEmpty()) {
+                addDatePickerHighlighting(datePicker, datesWithFlights);
+            }
+        });
     }
 
     @FXML
     private void onCancelButtonClicked() {
+        tasks.cancelAll();
         Stage popupStage = sceneNavigator.getPopupStage();
         if (popupStage != null) {
             popupStage.close();
@@ -50,6 +55,7 @@ public class DateFilterPopupController extends Controller {
     private void onConfirmButtonClicked() {
         LocalDate selectedDate = datePicker.getValue();
         if (selectedDate != null) {
+            tasks.cancelAll();
             Stage popupStage = sceneNavigator.getPopupStage();
             if (popupStage != null) {
                 popupStage.close();
@@ -66,14 +72,20 @@ public class DateFilterPopupController extends Controller {
 
     /**
      * Adds highlighting effects to specific dates in a DatePicker.
-     * This method customizes the DatePicker by highlighting dates that need special attention, based on a list of date information provided.
+     * The dates are parsed once into a set, so that styling a cell while the user navigates the calendar is a
+     * single lookup, however many dates have flights.
      * 
      * @param datePicker The DatePicker component to be customized.
      * @param highlightDates A list containing information about the dates to be highlighted, each date corresponding to a JsonObject.
      */
     private void addDatePickerHighlighting(DatePicker datePicker, List<JsonObject> highlightDates) {
-        System.out.println("Setting up date picker highlighting...");
-        System.out.println("Number of dates to highlight: " + highlightDates.size());
+        Set<LocalDate> datesWithFlights = new HashSet<>();
+        for (JsonObject highlightDate : highlightDates) {
+            LocalDate date = Utils.parseServerDate(highlightDate.get("date").getAsString());
+            if (date != null) {
+                datesWithFlights.add(date);
+            }
+        }
 
         // Set the date cell factory of the date selector
         datePicker.setDayCellFactory(picker -> new DateCell() {
@@ -81,31 +93,16 @@ public class DateFilterPopupController extends Controller {
             public void updateItem(LocalDate date, boolean empty) {
                 super.updateItem(date, empty);
 
-                if (date != null && !empty) {
-                    // Convert the current cell date to a string for comparison
-                    String cellDate = date.toString();
-
+                // cells are reused for other dates when the month changes, so the style is always reset
+                if (date != null && !empty && datesWithFlights.contains(date)) {
+                    // Highlight the cell by setting a custom style
+                    setStyle("-fx-background-color: lightblue;");
+                    setTextFill(javafx.scene.paint.Color.WHITE);
+                } else {
+                    setStyle("");
                     setTextFill(javafx.scene.paint.Color.BLACK);
-                    // Check if it is a date that needs to be highlighted
-                    boolean hasFlights = highlightDates.stream()
-                            .map(obj -> obj.get("date").getAsString())
-                            .anyMatch(serverDate -> {
-                                boolean matches = utils.Utils.datesMatch(serverDate, cellDate);
-                                if (matches) {
-                                    System.out.println("Highlighting date: " + cellDate);
-                                }
-                                return matches;
-                            });
-
-                    if (hasFlights) {
-                        // Highlight the cell by setting a custom style
-                        setStyle("-fx-background-color: lightblue;");
-                        setTextFill(javafx.scene.paint.Color.WHITE);
-                    }
                 }
             }
         });
-
-        System.out.println("Date picker highlighting setup completed");
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package gui.controller.information;
 
 import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
 import gui.controller.Controller;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -24,12 +25,13 @@ public class FlightDatePanelController  extends Controller {
 
     private List<JsonObject> flightData;
     private int selectedIndex = -1;
+    private final BackgroundTasks tasks = new BackgroundTasks();
 
     /**
      * Initializes scene data with the given list of data.
      * This method is used to update the UI components based on the data passed.
      * For example, it sets the flight date label, hides the reserve button initially,
-     * clears error messages, and loads flight information for the selected date.
+     * shows a loading message, and loads flight information for the selected date in the background.
      * 
      * @param data A list containing date information, the first element is expected to be of type Date.
      */
@@ -43,27 +45,33 @@ public class FlightDatePanelController  extends Controller {
         // Hide reserve button initially
         reserveButton.setVisible(false);
     
-        // Clear any previous error messages
-        errorLabel.setText("");
-    
-        try {
-            // Get flights for selected date from server
-            flightData = restClient.getFlightDatesPerDate(selectedDate);
-    
-            // Check if there are any flights available on the selected date
-            if (flightData.isEmpty()) {
-                // Display no flight information error message
-                errorLabel.setText("No flights available on selected date.");
-                return;
-            }
+        // Show that the flights are loaded until they arrived
+        errorLabel.setText("Loading flights ...");
     
-            // Populate ListView with flight information
-            initializeFlightView();
-    
-        } catch (Exception e) {
-            // Handle exceptions when loading flight data, display error message
-            errorLabel.setText("Error loading flight data: " + e.getMessage());
+        // Get flights for selected date from server in the background
+        tasks.cancelAllWhenRemoved(flightListView);
+        tasks.run("flights", restClient.getFlightDatesPerDateAsync(selectedDate), this::showFlights,
+                // Handle exceptions when loading flight data, display error message
+                error -> errorLabel.setText("Error loading flight data: " + error.getMessage()));
+    }
+
+    /**
+     * Shows the flights of the selected date, or a message if there are none.
+     *
+     * @param flights the flights of the selected date
+     */
+    private void showFlights(List<JsonObject> flights) {
+        flightData = flights;
+        // Check if there are any flights available on the selected date
+        if (flightData.isEmpty()) {
+            // Display no flight information error message
+            errorLabel.setText("No flights available on selected date.");
+            return;
         }
+        errorLabel.setText("");
+
+        // Populate ListView with flight information
+        initializeFlightView();
     }
 
     /**
@@ -1,6 +1,7 @@
 package gui.controller.information;
 
 import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
 import gui.controller.Controller;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
@@ -22,6 +23,7 @@ import javafx.util.Duration;
 import utils.Utils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class InformationPanelController extends Controller {
 
@@ -43,6 +45,8 @@ public class InformationPanelController extends Controller {
 
     // store all ListView components for flight launch times
     private List<ListView<String>> launchTimeListViews = new ArrayList<>();
+
+    private final BackgroundTasks tasks = new BackgroundTasks();
     // ------------------------------------------------------
 
     // ------------------ FXML components ------------------
@@ -89,7 +93,8 @@ public class InformationPanelController extends Controller {
      * Hides the <code>InformationPanel</code> because at the beginning no
      * flight is selected. Is shown later, when user selects a flight.<br>
      * <br>
-     * Retrieves delivered data from previous scene and sets the text of all labels.<br>
+     * Retrieves delivered data from previous scene, requests the company and its flights
+     * at the same time and, once both arrived, sets the text of all labels.<br>
      * If currently the space company has no flight to launch, create a list with one dummy
      * JSON object containing a message which states that no flights are available.<br>
      * At the end initializes the list view in which all flights are displayed.
@@ -117,11 +122,29 @@ public class InformationPanelController extends Controller {
         }
         // ---------------------------------- END ----------------------------------
 
-        // retrieve company and flight information via REST client
-        JsonObject companyJson = restClient.requestCompanyInformation(companyId);
-        List<JsonObject> flightJson = restClient.requestFlightsOfCompany(companyId);
+        // requests of this panel are superseded when the user clicks another company
+        tasks.cancelAllWhenRemoved(flightListView);
+        companyNameLabel.setText("Loading ...");
+        flightListView.setPlaceholder(BackgroundTasks.placeholder("Loading flights ..."));
+
+        // retrieve company and flight information via REST client at the same time
+        CompletableFuture<JsonObject> companyRequest = restClient.requestCompanyInformationAsync(companyId);
+        CompletableFuture<List<JsonObject>> flightsRequest = restClient.requestFlightsOfCompanyAsync(companyId);
+        tasks.run("company", CompletableFuture.allOf(companyRequest, flightsRequest),
+                loaded -> showCompanyAndFlights(companyRequest.join(), flightsRequest.join()),
+                error -> companyNameLabel.setText("Company could not be loaded."));
+    }
 
-       // set the text for company labels based on retrieved data
+    /**
+     * Sets the text of all company labels and initializes the list view in
+     * which all flights are displayed.
+     *
+     * @param companyJson the company as <code>JsonObject</code>
+     * @param flightJson  the flights of the company; <code>null</code> if it
+     *                    has none
+     */
+    private void showCompanyAndFlights(JsonObject companyJson, List<JsonObject> flightJson) {
+        // set the text for company labels based on retrieved data
         companyNameLabel.setText(companyJson.get("name").getAsString());
         locationLabel.setText(companyJson.get("location").getAsString());
         descriptionLabel.setText(companyJson.get("description").getAsString());
@@ -183,38 +206,51 @@ public class InformationPanelController extends Controller {
             setReservable(false);
 
             // --------------- ONLY MAKE CHANGES TO THE CODE IN THIS AREA ---------------
-            // retrieve detailed flight information via REST client
-            List<JsonObject> flightJson = restClient.requestFlightInformationOfCompany(companyId, flightId);
-
-            System.out.println("Flight data received: " + flightJson);
-            if (flightJson != null) {
-                for (JsonObject json : flightJson) {
-                    System.out.println("launch_time: " + json.get("launch_time") +  ", flightDateId: " +
-                            json.get("flightDateId"));
-                }
-            }
-
-            // update UI components with the retrieved flight details
+            // retrieve detailed flight information via REST client; a flight clicked before is superseded
             flightNameLabel.setText(subitem);
-            viewTypeLabel.setText(flightJson.get(0).get("view_type").getAsString());
-            flightDurationLabel.setText(flightJson.get(0).get("flight_duration").getAsString() + " min");
+            tasks.run("flight", restClient.requestFlightInformationOfCompanyAsync(companyId, flightId),
+                    this::showFlight,
+                    error -> viewTypeLabel.setText("Flight could not be loaded."));
             // ---------------------------------- END ----------------------------------
+        }
+    }
 
-            // ------------- DO NOT CHANGE THE FOLLOWING PART OF THE CODE -------------
-            // initialize the schedule view for the selected flight
-            initializeViewForSubsubitems(flightJson);
+    /**
+     * Shows the information of the selected flight and initializes the view
+     * for its flight schedules.
+     *
+     * @param flightJson the list of <code>JsonObject</code>, each containing
+     *                   information of one flight schedule
+     */
+    private void showFlight(List<JsonObject> flightJson) {
+        // --------------- ONLY MAKE CHANGES TO THE CODE IN THIS AREA ---------------
+        System.out.println("Flight data received: " + flightJson);
+        if (flightJson != null) {
+            for (JsonObject json : flightJson) {
+                System.out.println("launch_time: " + json.get("launch_time") +  ", flightDateId: " +
+                        json.get("flightDateId"));
+            }
+        }
 
-            // make the flight information panel visible
-            flightInformationPanel.setMinHeight(Control.USE_COMPUTED_SIZE);
-            flightInformationPanel.setPrefHeight(Control.USE_COMPUTED_SIZE);
-            flightInformationPanel.setVisible(true);
+        // update UI components with the retrieved flight details
+        viewTypeLabel.setText(flightJson.get(0).get("view_type").getAsString());
+        flightDurationLabel.setText(flightJson.get(0).get("flight_duration").getAsString() + " min");
+        // ---------------------------------- END ----------------------------------
 
-            // automatically scroll to bottom of page
-            Animation animation = new Timeline(
-                    new KeyFrame(Duration.seconds(0.5), new KeyValue(scrollPane.vvalueProperty(), 1)));
-            animation.play();
-            // ---------------------------------- END ----------------------------------
-        }
+        // ------------- DO NOT CHANGE THE FOLLOWING PART OF THE CODE -------------
+        // initialize the schedule view for the selected flight
+        initializeViewForSubsubitems(flightJson);
+
+        // make the flight information panel visible
+        flightInformationPanel.setMinHeight(Control.USE_COMPUTED_SIZE);
+        flightInformationPanel.setPrefHeight(Control.USE_COMPUTED_SIZE);
+        flightInformationPanel.setVisible(true);
+
+        // automatically scroll to bottom of page
+        Animation animation = new Timeline(
+                new KeyFrame(Duration.seconds(0.5), new KeyValue(scrollPane.vvalueProperty(), 1)));
+        animation.play();
+        // ---------------------------------- END ----------------------------------
     }
 
     /**
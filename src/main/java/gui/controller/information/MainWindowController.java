@@ -1,6 +1,7 @@
 package gui.controller.information;
 
 import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
 import gui.controller.Controller;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -21,6 +22,7 @@ public class MainWindowController extends Controller implements Initializable {
     // ------------------ class attributes ------------------
     private List<Integer> companyIds = new ArrayList<>();
     private int lastClickedCompanyIndex = -1;
+    private final BackgroundTasks tasks = new BackgroundTasks();
     // ------------------------------------------------------
 
     // ------------------ FXML components ------------------
@@ -39,9 +41,10 @@ public class MainWindowController extends Controller implements Initializable {
     public void initialize(URL arg0, ResourceBundle arg1) {
         sceneNavigator.setMainWindowController(this);
 
-        // Retrieve company list via REST client
-        List<JsonObject> companyList = restClient.requestSpaceCompanies();
-        initializeCompanyListView(companyList);
+        // Retrieve company list via REST client in the background
+        companyListView.setPlaceholder(BackgroundTasks.placeholder("Loading space companies ..."));
+        tasks.run("companies", restClient.requestSpaceCompaniesAsync(), this::initializeCompanyListView,
+                error -> initializeCompanyListView(Collections.emptyList()));
     }
 
     /**
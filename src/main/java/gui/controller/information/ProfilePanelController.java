@@ -1,7 +1,10 @@
 package gui.controller.information;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
 import gui.controller.Controller;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.collections.ObservableList;
 import javafx.css.PseudoClass;
@@ -26,9 +29,13 @@ import java.util.*;
 
 public class ProfilePanelController extends Controller implements Initializable {
 
+    // reservations read per request
+    private static final int RESERVATIONS_PAGE_SIZE = 200;
+
     private final int tableRowHeight = 30;
     private TableColumn<Reservation, Date> dateColumn;
     private TableColumn<Reservation, String> timeColumn;
+    private final BackgroundTasks tasks = new BackgroundTasks();
 
     @FXML
     private Label firstnameLabel;
@@ -48,19 +55,28 @@ public class ProfilePanelController extends Controller implements Initializable
     @FXML
     private Button redeemTokensButton;
 
+    /**
+     * Loads the reservations of the user in the background. Every page of
+     * reservations is added to the table as soon as it arrived; once all
+     * arrived, the table is sorted and styled.
+     */
     public void initializeReservationTableView() {
         initializeTableColumns();
-        List<JsonObject> reservations = restClient.getReservationsOfClient();
+        reservationsTableView.setPlaceholder(BackgroundTasks.placeholder("Loading reservations ..."));
+        tasks.cancelAllWhenRemoved(reservationsTableView);
+        // pages are handed over in order, before the task completes
+        tasks.run("reservations", restClient.forEachReservationDetailsPageAsync(RESERVATIONS_PAGE_SIZE,
+                        page -> Platform.runLater(() -> page.forEach(this::addReservationToTable))),
+                loaded -> showReservations(),
+                error -> showReservations());
+    }
 
-        if (reservations == null) {
-            Label label = new Label("No reservations available until now.");
-            label.setStyle("-fx-font-style: italic;");
-            reservationsTableView.setPlaceholder(label);
+    // Sorts and styles the loaded reservations, or shows a message if there are none.
+    private void showReservations() {
+        if (reservationsTableView.getItems().isEmpty()) {
+            reservationsTableView.setPlaceholder(BackgroundTasks.placeholder("No reservations available until now."));
             reservationsTableView.setPrefHeight(100);
         } else {
-            for (JsonObject reservationJson : reservations) {
-                addReservationToTable(reservationJson);
-            }
             if (dateColumn != null) {
                 reservationsTableView.getSortOrder().add(dateColumn);
             }
@@ -150,36 +166,30 @@ public class ProfilePanelController extends Controller implements Initializable
     }
 
     /**
-     * Makes request to REST client to extract the flight information of the
-     * flight_dates id contained in the reservation. This way the ids of the company and
-     * flight, time and date of the reservation are extracted. Creates new
-     * <code>Reservation</code> object which is add to the table view. The mapping
-     * of the attributes of <code>Reservation</code> to the columns was previously
-     * defined.
+     * Creates new <code>Reservation</code> object from the reservation with its
+     * flight information, time, date and seat numbers, as returned by the
+     * server, and adds it to the table view. The mapping of the attributes of
+     * <code>Reservation</code> to the columns was previously defined.
      *
-     * @param json the reservation in JSON format
+     * @param json the reservation with its details in JSON format
      */
     private void addReservationToTable(JsonObject json) {
-        JsonObject flightInfo = restClient.getScheduleInfo(json.get("flightDateId").getAsInt());
-
-        int companyId = flightInfo.get("companyId").getAsInt();
-        int flightId = flightInfo.get("flightId").getAsInt();
-        int flightDateId = flightInfo.get("flightDateId").getAsInt();
-
-        String time = flightInfo.get("launch_time").getAsString();
-        Date date = Utils.parseStringToDate(flightInfo.get("date").getAsString() + " " + time,
+        String time = json.get("launch_time").getAsString();
+        Date date = Utils.parseStringToDate(json.get("date").getAsString() + " " + time,
                 Utils.monthDayYearDateTimeFormat);
 
-        // Fetch seat numbers as integers
-        List<Integer> seatNumbers = restClient.getSeatNumbersForReservation(json.get("id").getAsInt());
+        List<Integer> seatNumbers = new ArrayList<>();
+        for (JsonElement seatNumber : json.getAsJsonArray("seatNumbers")) {
+            seatNumbers.add(seatNumber.getAsInt());
+        }
 
         Reservation res = new Reservation(
                 json.get("id").getAsInt(),
-                companyId,
-                flightId,
-                flightDateId,
-                flightInfo.get("companyName").getAsString(),
-                flightInfo.get("flightName").getAsString(),
+                json.get("companyId").getAsInt(),
+                json.get("flightId").getAsInt(),
+                json.get("flightDateId").getAsInt(),
+                json.get("companyName").getAsString(),
+                json.get("flightName").getAsString(),
                 time,
                 json.get("reserved_seats").getAsInt(),
                 date,
@@ -231,8 +241,10 @@ public class ProfilePanelController extends Controller implements Initializable
         button.setOnAction(new EventHandler<>() {
             @Override
             public void handle(ActionEvent arg0) {
-                restClient.deleteReservation(reservation.getReservationId());
-                sceneNavigator.loadSceneToMainWindow(sceneNavigator.PROFILE, null);
+                button.setDisable(true);
+                tasks.run("delete", restClient.deleteReservationAsync(reservation.getReservationId()),
+                        deleted -> sceneNavigator.loadSceneToMainWindow(sceneNavigator.PROFILE, null),
+                        error -> button.setDisable(false));
             }
         });
     }
@@ -464,7 +476,18 @@ public class ProfilePanelController extends Controller implements Initializable
             return;
         }
 
-        if (restClient.redeemTokens(tokensToRedeem)) {
+        redeemTokensButton.setDisable(true);
+        tasks.run("redeem", restClient.redeemTokensAsync(tokensToRedeem), redeemed -> {
+            redeemTokensButton.setDisable(false);
+            showRedeemResult(redeemed, tokensToRedeem);
+        }, error -> {
+            redeemTokensButton.setDisable(false);
+            showRedeemResult(false, tokensToRedeem);
+        });
+    }
+
+    private void showRedeemResult(boolean redeemed, int tokensToRedeem) {
+        if (redeemed) {
             initializeTokensComponents();
 
             // Show success message
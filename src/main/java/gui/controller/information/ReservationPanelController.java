@@ -1,8 +1,10 @@
 package gui.controller.information;
 
+import com.google.gson.JsonObject;
+import gui.BackgroundTasks;
+import gui.SeatAvailability;
 import gui.controller.Controller;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
@@ -13,16 +15,23 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.scene.control.Alert;
+import rest_client.SeatSubscription;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 public class ReservationPanelController extends Controller {
 
+    private static final Logger logger = Logger.getLogger(ReservationPanelController.class.getName());
+
     // ------------------ class attributes ------------------
     private int reservationId;
     private int oldReservedSeatAmount;
@@ -31,6 +40,11 @@ public class ReservationPanelController extends Controller {
     private int flightId;
     private int flightDateId;
     private final int maxNumberOfSeats = 100; // Maximum number of available seats
+    // taken seats of the flight date, kept up to date by the server while the panel is shown
+    private SeatSubscription seatSubscription;
+    // seats that can be selected, shared by the combo boxes; null until the taken seats were loaded
+    private SeatAvailability seatAvailability;
+    private final BackgroundTasks tasks = new BackgroundTasks();
 
     // ------------------ FXML components ------------------
     @FXML
@@ -62,7 +76,7 @@ public class ReservationPanelController extends Controller {
     @Override
     public <T> void initializeSceneData(List<T> data) {
         if (data == null || data.isEmpty()) {
-            System.out.println("No data provided to initialize scene");
+            logger.log(Level.WARNING, "No data provided to initialize scene");
             return;
         }
 
@@ -88,11 +102,19 @@ public class ReservationPanelController extends Controller {
             companyId = Integer.parseInt((String) data.get(4));
             flightId = Integer.parseInt((String) data.get(5));
             flightDateId = Integer.parseInt((String) data.get(6));
-            System.out.println("Initialized with flightDateId: " + flightDateId);
         } catch (NumberFormatException e) {
-            System.out.println("Error parsing IDs: " + e.getMessage());
+            logger.log(Level.WARNING, "Error parsing IDs", e);
         }
 
+        seatSubscription = restClient.subscribeToSeats(flightDateId, () -> Platform.runLater(this::onSeatsChanged));
+        // the panel is removed from the scene when another one is loaded
+        seatSelectionVBox.sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                closeSeatSubscription();
+                tasks.cancelAll();
+            }
+        });
+
         int selectedSeats = 1;
         if (sceneNavigator.getPreviousScene() != null
                 && sceneNavigator.getPreviousScene().equals(sceneNavigator.PROFILE)) {
@@ -110,20 +132,47 @@ public class ReservationPanelController extends Controller {
             selectedSeats = oldReservedSeatAmount;
         }
 
-        setUpSeatSelection(selectedSeats);
-        // Add debug logging
-        System.out.println("ChoiceBox items: " + seatAmountChoiceBox.getItems());
-        System.out.println("Selected value: " + seatAmountChoiceBox.getValue());
-        updateSeatSelectionComboBoxes(selectedSeats, oldReservedSeatNumbers);
+        // load the number of available seats and the taken seats at the same time, the panel can be
+        // reserved once they arrived
+        boolean reservable = !reserveButton.isDisabled();
+        reserveButton.setDisable(true);
+        seatSelectionVBox.getChildren().setAll(BackgroundTasks.placeholder("Loading seats ..."));
+        CompletableFuture<JsonObject> flightDateRequest = restClient.getFlightDateInfoAsync(flightDateId);
+        CompletableFuture<BitSet> takenSeatsRequest = restClient.fetchTakenSeatBitmapAsync(flightDateId);
+        int initialSeats = selectedSeats;
+        tasks.run("seats", CompletableFuture.allOf(flightDateRequest, takenSeatsRequest), loaded -> {
+            JsonObject flightDate = flightDateRequest.join();
+            if (flightDate == null || !flightDate.has("available_seats")
+                    || flightDate.get("available_seats").isJsonNull()) {
+                showSeatsNotLoaded();
+                return;
+            }
+            BitSet takenSeats = takenSeatsRequest.join();
+            seatAvailability = new SeatAvailability(maxNumberOfSeats, oldReservedSeatNumbers);
+            // the subscription may already know newer seats than the request
+            if (seatSubscription != null && seatSubscription.isReady()) {
+                seatAvailability.setTaken(seatSubscription.getTakenSeatBitmap());
+            } else if (takenSeats != null) {
+                seatAvailability.setTaken(takenSeats);
+            }
+            setUpSeatSelection(initialSeats, flightDate.get("available_seats").getAsInt());
+            updateSeatSelectionComboBoxes(initialSeats, oldReservedSeatNumbers);
 
-        seatAmountChoiceBox.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
-            updateSeatSelectionComboBoxes(newVal, oldReservedSeatNumbers);
-        });
+            seatAmountChoiceBox.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+                updateSeatSelectionComboBoxes(newVal, oldReservedSeatNumbers);
+            });
+            reserveButton.setDisable(!reservable);
+        }, error -> showSeatsNotLoaded());
     }
 
-    private void setUpSeatSelection(int selectedSeats) {
+    // Replaces the loading placeholder; the reserve button stays disabled, since no seats can be selected.
+    private void showSeatsNotLoaded() {
+        seatSelectionVBox.getChildren().setAll(BackgroundTasks.placeholder("No seats available."));
+        noModificationLabel.setText("The seats could not be loaded, please try again later.");
+    }
+
+    private void setUpSeatSelection(int selectedSeats, int availableSeats) {
         seatAmountChoiceBox.getItems().clear();
-        int availableSeats = restClient.getFlightDateInfo(flightDateId).get("available_seats").getAsInt();
 
         // check if user is modifying a reservation (oldReservedSeatAmount != 0) and
         // only less than 10 seats are available
@@ -145,19 +194,7 @@ public class ReservationPanelController extends Controller {
 
     private void updateSeatSelectionComboBoxes(int numberOfSeats, List<Integer> seatNumbers) {
         seatSelectionVBox.getChildren().clear();
-
-        // Fetch reserved seats as integers
-        List<Integer> reservedSeats = restClient.fetchAvailableSeats(flightDateId);
-
-        // Create available seats list
-        List<Integer> availableSeats = IntStream.rangeClosed(1, maxNumberOfSeats)
-                .boxed()
-                .filter(seat -> !reservedSeats.contains(seat))
-                .collect(Collectors.toList());
-
-        // Convert to ObservableList for sorting
-        ObservableList<Integer> observableSeats = FXCollections.observableArrayList(availableSeats);
-        FXCollections.sort(observableSeats); // Fix 1: Correct sorting
+        seatAvailability.clearViews();
 
         for (int i = 0; i < numberOfSeats; i++) {
             ComboBox<Integer> seatComboBox = new ComboBox<>();
@@ -165,50 +202,50 @@ public class ReservationPanelController extends Controller {
             seatComboBox.setMaxWidth(150);
             seatComboBox.setPromptText("Select seat " + (i + 1));
 
-            // Create a copy of available seats for this combo box
-            List<Integer> seatsForBox = new ArrayList<>(observableSeats);
-
-            if (seatNumbers != null && i < seatNumbers.size()) {
-                seatsForBox.add(seatNumbers.get(i));
-                FXCollections.sort(FXCollections.observableArrayList(seatsForBox));
-            }
-
-            seatComboBox.setItems(FXCollections.observableArrayList(seatsForBox));
+            // every combo box observes its view, which the seat availability keeps up to date
+            SeatAvailability.View view = seatAvailability.addView();
+            seatComboBox.setItems(view.getSeats());
+            seatComboBox.valueProperty().addListener((obs, oldVal, newVal) -> view.select(newVal));
 
             if (seatNumbers != null && i < seatNumbers.size()) {
                 seatComboBox.getSelectionModel().select(seatNumbers.get(i));
             }
 
-            seatComboBox.valueProperty().addListener((obs, oldVal, newVal) -> {
-                if (oldVal != null) addSeatToOtherComboBoxes(oldVal);
-                if (newVal != null) removeSelectedSeatFromOtherComboBoxes(newVal, seatComboBox);
-            });
-
             seatSelectionVBox.getChildren().add(seatComboBox);
         }
     }
 
-    private void removeSelectedSeatFromOtherComboBoxes(int selectedSeat, ComboBox<Integer> sourceComboBox) {
-        for (Node node : seatSelectionVBox.getChildren()) {
-            if (node instanceof ComboBox && node != sourceComboBox) {
-                ComboBox<Integer> comboBox = (ComboBox<Integer>) node;
-                comboBox.getItems().remove(Integer.valueOf(selectedSeat));
-            }
+    /**
+     * Applies the seats that other users took or released to the seat
+     * selection. A selected seat that was taken meanwhile is deselected, and
+     * every combo box offers the free seats that are not selected in another
+     * one.
+     */
+    private void onSeatsChanged() {
+        if (seatSubscription == null || !seatSubscription.isReady() || seatAvailability == null) {
+            return;
         }
-    }
+        seatAvailability.setTaken(seatSubscription.getTakenSeatBitmap());
 
-    private void addSeatToOtherComboBoxes(int deselectedSeat) {
         for (Node node : seatSelectionVBox.getChildren()) {
             if (node instanceof ComboBox) {
                 ComboBox<Integer> comboBox = (ComboBox<Integer>) node;
-                if (!comboBox.getItems().contains(deselectedSeat)) {
-                    comboBox.getItems().add(deselectedSeat);
-                    FXCollections.sort(comboBox.getItems());
+                Integer seat = comboBox.getValue();
+                if (seat != null && !seatAvailability.isFree(seat)) {
+                    comboBox.setValue(null);
+                    noModificationLabel.setText("Seat " + seat + " was just taken, please select another seat.");
                 }
             }
         }
     }
 
+    private void closeSeatSubscription() {
+        if (seatSubscription != null) {
+            seatSubscription.close();
+            seatSubscription = null;
+        }
+    }
+
     private List<Integer> getSeatNumbersFromSelectionBox() {
         List<Integer> seatNumbers = new ArrayList<>();
         for (Node node : seatSelectionVBox.getChildren()) {
@@ -240,27 +277,47 @@ public class ReservationPanelController extends Controller {
             if (seatAmount == oldReservedSeatAmount && seatNumbers.equals(oldReservedSeatNumbers)) {
                 noModificationLabel.setText("No changes were performed.");
             } else {
-                restClient.modifyReservation(reservationId, seatAmount, seatNumbers);
-                controllerData.add("Change of reservation successful");
-                controllerData.add("The amount of reserved tickets was successfully changed.");
-                controllerData.add("Continue");
-                sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
+                reserveButton.setDisable(true);
+                tasks.run("reservation", restClient.modifyReservationAsync(reservationId, seatAmount, seatNumbers),
+                        modified -> {
+                            if (!modified) {
+                                onReservationFailed();
+                                return;
+                            }
+                            controllerData.add("Change of reservation successful");
+                            controllerData.add("The amount of reserved tickets was successfully changed.");
+                            controllerData.add("Continue");
+                            sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
+                        }, error -> onReservationFailed());
             }
         } else {
             // Handle new reservation
-            restClient.createNewReservation(flightDateId, seatAmount, seatNumbers);
-            controllerData.add("Reservation successful");
-            controllerData.add("Tickets were successfully reserved for the chosen space flight.");
-            controllerData.add("Continue");
-            // Store information for return to company view
-            List<Integer> companyData = Collections.singletonList(companyId);
-            sceneNavigator.setPreviousScene(sceneNavigator.INFO);
-            sceneNavigator.setDataPreviousScene((List)companyData);  // 使用强制类型转换
-
-            sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
+            reserveButton.setDisable(true);
+            tasks.run("reservation", restClient.createNewReservationAsync(flightDateId, seatAmount, seatNumbers),
+                    created -> {
+                        if (!created) {
+                            onReservationFailed();
+                            return;
+                        }
+                        controllerData.add("Reservation successful");
+                        controllerData.add("Tickets were successfully reserved for the chosen space flight.");
+                        controllerData.add("Continue");
+                        // Store information for return to company view
+                        List<Integer> companyData = Collections.singletonList(companyId);
+                        sceneNavigator.setPreviousScene(sceneNavigator.INFO);
+                        sceneNavigator.setDataPreviousScene((List) companyData);  // 使用强制类型转换
+
+                        sceneNavigator.loadSceneToMainWindow(sceneNavigator.SUCCESS_PANEL, controllerData);
+                    }, error -> onReservationFailed());
         }
     }
 
+    // Lets the user send the reservation again after the server refused it or could not be reached.
+    private void onReservationFailed() {
+        noModificationLabel.setText("The reservation could not be saved, please try again.");
+        reserveButton.setDisable(false);
+    }
+
     public void setPreviousSceneInformation() {
         sceneNavigator.setPreviousScene(sceneNavigator.RESERVATION);
         String[] data = {companyLabel.getText(), flightLabel.getText(), launchTimeLabel.getText(), dateLabel.getText(),
@@ -284,6 +341,7 @@ public class ReservationPanelController extends Controller {
     @FXML
     public void onCreateAccountButtonClicked() {
         // set up information about previous scene and call sign up scene
+        closeSeatSubscription();
         setPreviousSceneInformation();
         sceneNavigator.loadCompleteWindow(sceneNavigator.SIGN_UP_DIALOG,
                 (Stage) createAccountButton.getScene().getWindow());
@@ -292,6 +350,7 @@ public class ReservationPanelController extends Controller {
     @FXML
     public void onLogInButtonClicked() {
         // set up information about previous scene and call log in scene
+        closeSeatSubscription();
         setPreviousSceneInformation();
         sceneNavigator.loadCompleteWindow(sceneNavigator.LOG_IN_DIALOG, (Stage) logInButton.getScene().getWindow());
     }
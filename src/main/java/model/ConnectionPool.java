@@ -0,0 +1,380 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of JDBC connections used by the {@link DatabaseConnector}. <br>
+ * <br>
+ * At most <code>maxSize</code> connections are handed out at the same time. A
+ * caller that finds the pool exhausted waits up to
+ * <code>borrowTimeoutMillis</code> before the borrow fails. Idle connections
+ * are validated when they are borrowed and connections that stayed idle for
+ * longer than <code>idleTimeoutMillis</code> are closed, as long as at least
+ * <code>minSize</code> connections remain open. <br>
+ * <br>
+ * The pool also limits how many queries may run against the database at the
+ * same time. With {@link #setMaxWaiting(int)} a borrow fails right away once
+ * too many callers are already waiting, so a burst of requests is rejected
+ * early instead of piling up until the borrow timeout. <br>
+ * <br>
+ * Every connection owns a {@link StatementCache}, so that statements prepared
+ * on it survive being handed back to the pool.
+ */
+public class ConnectionPool {
+
+    public static final int DEFAULT_MIN_SIZE = 2;
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 5_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 300_000;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    // seconds the driver may take to answer Connection.isValid on borrow
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int statementCacheSize;
+
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    // guarded by this
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+
+    // one permit per connection that may be handed out
+    private final Semaphore permits;
+    // most recently returned connection first, so that the oldest ones age out
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private int openConnections;
+    private boolean closed;
+    private volatile int maxWaiting = Integer.MAX_VALUE;
+
+    /**
+     * Creates a pool with the default sizes and timeouts.
+     *
+     * @param url      the JDBC url including the database name
+     * @param username the database user
+     * @param password the password of the database user
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public ConnectionPool(String url, String username, String password) throws SQLException {
+        this(url, username, password, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_BORROW_TIMEOUT_MILLIS,
+                DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a pool with the default statement cache size, see
+     * {@link #ConnectionPool(String, String, String, int, int, long, long, int)}.
+     */
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis) throws SQLException {
+        this(url, username, password, minSize, maxSize, borrowTimeoutMillis, idleTimeoutMillis,
+                DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a pool and opens <code>minSize</code> connections right away, so
+     * that wrong credentials or a missing database are reported on startup.
+     *
+     * @param url                 the JDBC url including the database name
+     * @param username            the database user
+     * @param password            the password of the database user
+     * @param minSize             the number of connections kept open while idle
+     * @param maxSize             the maximum number of connections in use at
+     *                            the same time; must be at least 1 and not
+     *                            smaller than minSize
+     * @param borrowTimeoutMillis how long {@link #borrow()} waits for a free
+     *                            connection
+     * @param idleTimeoutMillis   how long a connection may stay unused before
+     *                            it is closed
+     * @param statementCacheSize  the number of prepared statements cached per
+     *                            connection
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, int statementCacheSize)
+            throws SQLException {
+        this(() -> DriverManager.getConnection(url, username, password), minSize, maxSize, borrowTimeoutMillis,
+                idleTimeoutMillis, statementCacheSize);
+    }
+
+    /**
+     * Creates a pool whose connections are opened by the factory, e.g. by a
+     * <code>DataSource</code>, see
+     * {@link #ConnectionPool(String, String, String, int, int, long, long, int)}
+     * for the other parameters.
+     *
+     * @param factory opens a new connection whenever the pool needs one
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, int statementCacheSize) throws SQLException {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Pool sizes must satisfy 0 <= minSize <= maxSize and maxSize >= 1");
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        try {
+            for (int i = 0; i < minSize; i++) {
+                Connection connection = open();
+                synchronized (this) {
+                    openConnections++;
+                    idle.addLast(new IdleConnection(connection, System.nanoTime()));
+                }
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes a connection out of the pool. Waits if all connections are in use.
+     * The connection must be handed back with {@link #release(Connection)}.
+     *
+     * @return a validated, open connection
+     * @throws SQLException if no connection became free within the borrow
+     *                      timeout or a new connection could not be opened
+     */
+    public Connection borrow() throws SQLException {
+        // the queue length is an estimate, which is good enough to shed load
+        if (permits.availablePermits() == 0 && permits.getQueueLength() >= maxWaiting) {
+            throw new SQLTransientConnectionException("Too many queries waiting for a database connection");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("No database connection available after " + borrowTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            evictIdle();
+            IdleConnection candidate;
+            while ((candidate = pollIdle()) != null) {
+                if (isUsable(candidate.connection)) {
+                    return candidate.connection;
+                }
+                discard(candidate.connection);
+            }
+            synchronized (this) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                openConnections++;
+            }
+            try {
+                return open();
+            } catch (SQLException e) {
+                synchronized (this) {
+                    openConnections--;
+                }
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands a borrowed connection back to the pool. Connections that were
+     * closed by the caller or left in a transaction are dropped instead of
+     * being reused.
+     *
+     * @param connection the connection obtained from {@link #borrow()}; may be
+     *                   <code>null</code>, then nothing happens
+     */
+    public void release(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            boolean reusable = !connection.isClosed() && connection.getAutoCommit();
+            synchronized (this) {
+                if (reusable && !closed) {
+                    idle.addFirst(new IdleConnection(connection, System.nanoTime()));
+                    return;
+                }
+            }
+            discard(connection);
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows. Connections that
+     * are currently borrowed are closed when they are released.
+     */
+    public void close() {
+        Deque<IdleConnection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        for (IdleConnection idleConnection : toClose) {
+            discard(idleConnection.connection);
+        }
+    }
+
+    /**
+     * Returns the statement cache of a connection that is currently borrowed
+     * from this pool.
+     *
+     * @param connection the borrowed connection
+     * @return the statement cache belonging to the connection
+     */
+    StatementCache getStatementCache(Connection connection) {
+        synchronized (this) {
+            return statementCaches.computeIfAbsent(connection,
+                    c -> new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses));
+        }
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    /**
+     * Limits the number of callers that wait for a connection while all are in
+     * use. Further callers fail immediately.
+     *
+     * @param maxWaiting the maximum number of waiting callers; 0 lets borrows
+     *                   fail as soon as the pool is exhausted
+     */
+    public void setMaxWaiting(int maxWaiting) {
+        if (maxWaiting < 0) {
+            throw new IllegalArgumentException("maxWaiting must not be negative");
+        }
+        this.maxWaiting = maxWaiting;
+    }
+
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int getOpenConnections() {
+        return openConnections;
+    }
+
+    public synchronized int getIdleConnections() {
+        return idle.size();
+    }
+
+    private Connection open() throws SQLException {
+        return factory.open();
+    }
+
+    private synchronized IdleConnection pollIdle() {
+        return idle.pollFirst();
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Closes connections that stayed idle for longer than the idle timeout.
+     * Runs on borrow, so no housekeeping thread is needed.
+     */
+    private void evictIdle() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        Deque<Connection> expired = new ArrayDeque<>();
+        synchronized (this) {
+            // oldest connections are at the end of the deque
+            Iterator<IdleConnection> it = idle.descendingIterator();
+            while (it.hasNext() && openConnections - expired.size() > minSize) {
+                IdleConnection candidate = it.next();
+                if (now - candidate.idleSince < timeoutNanos) {
+                    break;
+                }
+                it.remove();
+                expired.add(candidate.connection);
+            }
+        }
+        for (Connection connection : expired) {
+            discard(connection);
+        }
+    }
+
+    private void discard(Connection connection) {
+        StatementCache cache;
+        synchronized (this) {
+            openConnections--;
+            cache = statementCaches.remove(connection);
+        }
+        if (cache != null) {
+            cache.clear();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "SQL error when closing pooled connection");
+        }
+    }
+
+    /**
+     * Opens the connections of a pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long idleSince;
+
+        private IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package model;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,6 +26,9 @@ public class DatabaseConnector {
     public static final String DB_URL = "jdbc:mariadb://localhost/";
     public static final String USERNAME = "root";
     public static final String PASSWORD = "root";
+    // let the server prepare statements once per connection instead of
+    // parsing the SQL text on every execution
+    public static final String CONNECTION_OPTIONS = "?useServerPrepStmts=true";
     // --------------------------------------------------------------------
 
     // --------------------------- TABLE NAMES ---------------------------
@@ -39,14 +46,38 @@ public class DatabaseConnector {
     public static final String SEAT_NUMBERS = "seat_numbers"; // seat numbers
     // -------------------------------------------------------------------
     private static final Logger logger = Logger.getLogger(DatabaseConnector.class.getName());
-    private Connection connection;
+    // upper bound for the number of memoized SQL texts
+    private static final int MAX_MEMOIZED_STATEMENTS = 1024;
+    // upper bound for the number of rows sent in one multi-row INSERT
+    private static final int MAX_ROWS_PER_INSERT = 100;
+    private ConnectionPool pool;
+    private final Map<SqlKey, String> sqlTexts = new ConcurrentHashMap<>();
 
     public DatabaseConnector(String database) {
+        this(database, ConnectionPool.DEFAULT_MIN_SIZE, ConnectionPool.DEFAULT_MAX_SIZE,
+                ConnectionPool.DEFAULT_BORROW_TIMEOUT_MILLIS, ConnectionPool.DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Opens a pool of connections to the given database. Every query borrows a
+     * connection from the pool and returns it afterwards, so that concurrent
+     * requests do not have to wait for each other.
+     *
+     * @param database            the name of the database
+     * @param minPoolSize         the number of connections kept open while idle
+     * @param maxPoolSize         the maximum number of queries running at the
+     *                            same time
+     * @param borrowTimeoutMillis how long a query waits for a free connection
+     * @param idleTimeoutMillis   how long an unused connection is kept open
+     */
+    public DatabaseConnector(String database, int minPoolSize, int maxPoolSize, long borrowTimeoutMillis,
+                             long idleTimeoutMillis) {
         try {
             // Register JDBC driver
             Class.forName(JDBC_DRIVER);
-            // open connection
-            connection = DriverManager.getConnection(DB_URL + database, USERNAME, PASSWORD);
+            // open connections
+            pool = new ConnectionPool(DB_URL + database + CONNECTION_OPTIONS, USERNAME, PASSWORD, minPoolSize, maxPoolSize,
+                    borrowTimeoutMillis, idleTimeoutMillis);
         } catch (ClassNotFoundException e) {
             logger.log(Level.WARNING, "ClassNotFoundException in DatabaseConnector constructor");
         } catch (SQLInvalidAuthorizationSpecException e){
@@ -61,6 +92,16 @@ public class DatabaseConnector {
         }
     }
 
+    /**
+     * Runs all queries on the given pool instead of opening one, e.g. a pool
+     * whose connections come from a stub driver.
+     *
+     * @param pool the pool the queries borrow their connections from
+     */
+    public DatabaseConnector(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
     /**
      * Creates a SQL SELECT statement with the given parameters as follows:
      *
@@ -96,24 +137,83 @@ public class DatabaseConnector {
     public List<Map<String, Object>> executeSelectQuery(String[] selection, String[] tables, String[] tableAlias,
                                                         String condition, String[] conditionArgs) {
         List<Map<String, Object>> map = null;
+        Connection connection = null;
         try {
-            PreparedStatement stmt = createSelectStatement(selection, tables, tableAlias, condition, conditionArgs);
+            connection = pool.borrow();
+            PreparedStatement stmt = createSelectStatement(connection, selection, tables, tableAlias, condition,
+                    conditionArgs);
             if (stmt != null) {
                 ResultSet result = stmt.executeQuery();
                 map = map(result);
             }
-            close(stmt);
         } catch (SQLException e) {
             logger.log(Level.FINE, "SQL error when executing select statement");
+        } finally {
+            pool.release(connection);
         }
         return map;
     }
 
+    /**
+     * Executes a SQL SELECT statement like
+     * {@link #executeSelectQuery(String[], String[], String[], String, String[])},
+     * but hands the rows to the given work one at a time instead of collecting
+     * them in a list. The driver fetches <code>fetchSize</code> rows per round
+     * trip, so the memory needed does not grow with the size of the result. <br>
+     * <br>
+     * The cursor is only valid while the work runs; the connection stays
+     * borrowed until then.
+     *
+     * @param selection     the array with column names; cannot be
+     *                      <code>null</code>
+     * @param tables        the array with database table names; cannot be
+     *                      <code>null</code>
+     * @param tableAlias    the array with table name aliases; can be
+     *                      <code>null</code> to omit aliases
+     * @param condition     the array with conditions; can be <code>null</code> to
+     *                      omit conditions
+     * @param conditionArgs the array with the corresponding values for the
+     *                      selection; can be <code>null</code> if no parameter
+     *                      values are needed
+     * @param fetchSize     the number of rows fetched from the server at once
+     * @param work          reads the rows from the cursor
+     * @param <T>           the type of the result of the work
+     * @return the result of the work; <code>null</code> if the query or the work
+     * failed
+     */
+    public <T> T executeStreamingSelectQuery(String[] selection, String[] tables, String[] tableAlias,
+                                             String condition, String[] conditionArgs, int fetchSize,
+                                             CursorWork<T> work) {
+        Connection connection = null;
+        PreparedStatement stmt = null;
+        ResultSet result = null;
+        try {
+            connection = pool.borrow();
+            stmt = createSelectStatement(connection, selection, tables, tableAlias, condition, conditionArgs);
+            if (stmt == null) {
+                return null;
+            }
+            stmt.setFetchSize(fetchSize);
+            result = stmt.executeQuery();
+            return work.read(new ResultSetCursor(result));
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "SQL error when executing streaming select statement", e);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "I/O error when reading streamed rows", e);
+        } finally {
+            close(result);
+            resetFetchSize(stmt);
+            pool.release(connection);
+        }
+        return null;
+    }
+
     /**
      * Creates a SQL SELECT statement like shown in
      * {@link #executeSelectQuery(String[], String[], String[], String, String[])}
-     * with the same parameters.
+     * with the same parameters on the given connection.
      *
+     * @param connection    the borrowed connection the statement is prepared on
      * @param selection    the array with column names; cannot be
      *                      <code>null</code>; can contain only "*" for selecting
      *                      all columns
@@ -128,34 +228,12 @@ public class DatabaseConnector {
      *                      values are needed
      * @return the created SQL statement as <code>PreparedStatement</code> object
      */
-    private PreparedStatement createSelectStatement(String[] selection, String[] tables, String[] tableAlias,
-                                                    String condition, String[] conditionArgs) {
+    private PreparedStatement createSelectStatement(Connection connection, String[] selection, String[] tables,
+                                                    String[] tableAlias, String condition, String[] conditionArgs) {
         PreparedStatement stmt = null;
         if (selection != null && tables != null) {
             try {
-                StringBuilder sb = new StringBuilder();
-                sb.append("SELECT ");
-                sb.append(String.join(", ", selection));
-                sb.append(" FROM ");
-
-                // only if aliases for table given, concatenate them with table name
-                if (tableAlias != null) {
-                    String[] tmp = new String[tables.length];
-                    for (int i = 0; i < tables.length; i++) {
-                        tmp[i] = tables[i] + " as " + tableAlias[i];
-                    }
-                    sb.append(String.join(", ", tmp));
-                } else {
-                    sb.append(String.join(", ", tables));
-                }
-
-                // only if selection is available, append it
-                if (condition != null) {
-                    sb.append(" WHERE ");
-                    sb.append(condition);
-                }
-
-                stmt = connection.prepareStatement(sb.toString());
+                stmt = prepare(connection, selectSql(selection, tables, tableAlias, condition));
 
                 // only if parameters are given, substitute them
                 if (conditionArgs != null) {
@@ -172,6 +250,41 @@ public class DatabaseConnector {
         return stmt;
     }
 
+    /**
+     * Builds the SQL text of a SELECT statement. The text is memoized per
+     * combination of arguments, so that repeated queries of the same shape do
+     * not join the arrays again.
+     */
+    private String selectSql(String[] selection, String[] tables, String[] tableAlias, String condition) {
+        SqlKey key = new SqlKey(SqlKey.SELECT, condition, selection, tables, tableAlias);
+        String sql = sqlTexts.get(key);
+        if (sql == null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("SELECT ");
+            sb.append(String.join(", ", selection));
+            sb.append(" FROM ");
+
+            // only if aliases for table given, concatenate them with table name
+            if (tableAlias != null) {
+                String[] tmp = new String[tables.length];
+                for (int i = 0; i < tables.length; i++) {
+                    tmp[i] = tables[i] + " as " + tableAlias[i];
+                }
+                sb.append(String.join(", ", tmp));
+            } else {
+                sb.append(String.join(", ", tables));
+            }
+
+            // only if selection is available, append it
+            if (condition != null) {
+                sb.append(" WHERE ");
+                sb.append(condition);
+            }
+            sql = memoize(key, sb.toString());
+        }
+        return sql;
+    }
+
     /**
      * Creates a SQL UPDATE statement with the given parameters as follows:
      *
@@ -205,17 +318,20 @@ public class DatabaseConnector {
      */
     public boolean executeUpdateQuery(String table, String[] modification, String[] modificationArgs, String selection,
                                       String[] selectionArgs) {
+        Connection connection = null;
         try {
-            PreparedStatement stmt = createUpdateStatement(table, modification, modificationArgs, selection,
-                    selectionArgs);
+            connection = pool.borrow();
+            PreparedStatement stmt = createUpdateStatement(connection, table, modification, modificationArgs,
+                    selection, selectionArgs);
             if (stmt != null) {
                 stmt.executeUpdate();
             } else {
                 return false;
             }
-            close(stmt);
         } catch (SQLException e) {
             return false;
+        } finally {
+            pool.release(connection);
         }
         return true;
     }
@@ -223,8 +339,10 @@ public class DatabaseConnector {
     /**
      * Creates a SQL UPDATE statement like shown in
      * {@link #executeUpdateQuery(String, String[], String[], String, String[])}
-     * with the same parameters.
+     * with the same parameters on the given connection.
      *
+     * @param connection       the borrowed connection the statement is prepared
+     *                         on
      * @param table            the name of the table; cannot be <code>null</code>
      * @param modification     the array with columns that are changed; cannot be
      *                         <code>null</code>;
@@ -238,24 +356,13 @@ public class DatabaseConnector {
      *                         values are needed
      * @return the created SQL statement as <code>PreparedStatement</code> object
      */
-    private PreparedStatement createUpdateStatement(String table, String[] modification, String[] modificationArgs,
-                                                    String selection, String[] selectionArgs) {
+    private PreparedStatement createUpdateStatement(Connection connection, String table, String[] modification,
+                                                    String[] modificationArgs, String selection,
+                                                    String[] selectionArgs) {
         PreparedStatement stmt = null;
         if (table != null && modification != null) {
             try {
-                StringBuilder sb = new StringBuilder();
-                sb.append("UPDATE ");
-                sb.append(table);
-                sb.append(" SET ");
-                sb.append(String.join(", ", modification));
-
-                // only if selection is available, append it
-                if (selection != null) {
-                    sb.append(" WHERE ");
-                    sb.append(selection);
-                }
-
-                stmt = connection.prepareStatement(sb.toString());
+                stmt = prepare(connection, updateSql(table, modification, selection));
                 int index = 1;
                 if (modificationArgs != null) {
                     for (int i = 0; i < modificationArgs.length; i++) {
@@ -277,6 +384,30 @@ public class DatabaseConnector {
         return stmt;
     }
 
+    /**
+     * Builds the SQL text of an UPDATE statement, memoized like
+     * {@link #selectSql(String[], String[], String[], String)}.
+     */
+    private String updateSql(String table, String[] modification, String selection) {
+        SqlKey key = new SqlKey(SqlKey.UPDATE, selection, new String[]{table}, modification);
+        String sql = sqlTexts.get(key);
+        if (sql == null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("UPDATE ");
+            sb.append(table);
+            sb.append(" SET ");
+            sb.append(String.join(", ", modification));
+
+            // only if selection is available, append it
+            if (selection != null) {
+                sb.append(" WHERE ");
+                sb.append(selection);
+            }
+            sql = memoize(key, sb.toString());
+        }
+        return sql;
+    }
+
     /**
      * Creates a SQL INSERT statement with the given parameters as follows:
      *
@@ -286,6 +417,7 @@ public class DatabaseConnector {
      * <b>VALUES</b> (values)<br>
      * <br>
      * <p>
+     * The values are passed as bind parameters and the array is left unchanged.
      * Executes the SQL statement and returns whether the update was successful or
      * not.
      *
@@ -298,55 +430,140 @@ public class DatabaseConnector {
      * otherwise
      */
     public boolean executeInsertQuery(String table, String[] columns, String[] values) {
-        try {
-            PreparedStatement stmt = createInsertStatement(table, columns, values);
-            if (stmt != null) {
-                stmt.executeUpdate();
-            } else {
-                return false;
-            }
-            close(stmt);
-        } catch (SQLException e) {
+        if (values == null) {
             return false;
         }
-        return true;
+        return executeBatchInsert(table, columns, Collections.singletonList(values)) != null;
     }
 
     /**
-     * Creates a SQL INSERT statement like shown in
-     * {@link #executeInsertQuery(String, String[], String[])} with the same
-     * parameters.
+     * Creates a SQL INSERT statement for several rows at once as follows:
+     *
+     * <br>
+     * <br>
+     * <b>INSERT INTO</b> table (columns)<br>
+     * <b>VALUES</b> (row 1), (row 2), ...<br>
+     * <br>
+     * <p>
+     * All values are passed as bind parameters. The rows are sent in one round
+     * trip; only very large batches are split into several statements, which
+     * then run in one transaction, so that either all rows or none are
+     * inserted.
      *
      * @param table   the name of the table; cannot be <code>null</code>
      * @param columns the array containing the columns to insert values; cannot be
      *                <code>null</code>
-     * @param values  the array with the values to insert; cannot be
-     *                <code>null</code>; must have the same length as columns
-     * @return the created SQL statement as <code>PreparedStatement</code> object
+     * @param rows    the list of value arrays, one per row; cannot be
+     *                <code>null</code>; every array must have the same length as
+     *                columns
+     * @return the generated keys of the inserted rows in insertion order (empty
+     * if the table has no auto increment column); <code>null</code> if the
+     * insertion failed
      */
-    private PreparedStatement createInsertStatement(String table, String[] columns, String[] values) {
-        PreparedStatement stmt = null;
-        if (table != null && columns != null && values != null && columns.length == values.length) {
+    public List<Integer> executeBatchInsert(String table, String[] columns, List<String[]> rows) {
+        if (table == null || columns == null || rows == null) {
+            return null;
+        }
+        if (rows.size() > MAX_ROWS_PER_INSERT) {
+            return inTransaction(transaction -> transaction.batchInsert(table, columns, rows));
+        }
+        Connection connection = null;
+        try {
+            connection = pool.borrow();
+            return insertRows(connection, table, columns, rows);
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "SQL error when executing insert statement");
+            return null;
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Inserts the rows on the given connection, at most
+     * <code>MAX_ROWS_PER_INSERT</code> rows per statement, and collects the
+     * generated keys.
+     */
+    private List<Integer> insertRows(Connection connection, String table, String[] columns, List<String[]> rows)
+            throws SQLException {
+        for (String[] row : rows) {
+            if (row == null || row.length != columns.length) {
+                throw new SQLException("Every row must have one value per column");
+            }
+        }
+        List<Integer> keys = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_INSERT) {
+            List<String[]> chunk = rows.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, rows.size()));
+            PreparedStatement stmt = createInsertStatement(connection, table, columns, chunk);
+            stmt.executeUpdate();
+            ResultSet generated = stmt.getGeneratedKeys();
             try {
-                StringBuilder sb = new StringBuilder();
-                sb.append("INSERT INTO ");
-                sb.append(table).append(" (");
-                sb.append(String.join(", ", columns));
-                sb.append(") VALUES (");
-                for (int i = 0; i < values.length; i++) {
-                    values[i] = "\"" + values[i] + "\"";
+                while (generated != null && generated.next()) {
+                    keys.add(generated.getInt(1));
                 }
-                sb.append(String.join(", ", values)).append(")");
+            } finally {
+                close(generated);
+            }
+        }
+        return keys;
+    }
 
-                stmt = connection.prepareStatement(sb.toString());
-            } catch (SQLException e) {
-                logger.log(Level.FINE, "SQL error when executing insert statement");
-                return null;
+    /**
+     * Creates a SQL INSERT statement like shown in
+     * {@link #executeBatchInsert(String, String[], List)} with the same
+     * parameters on the given connection and binds the values of all rows.
+     *
+     * @param connection the borrowed connection the statement is prepared on
+     * @param table      the name of the table; cannot be <code>null</code>
+     * @param columns    the array containing the columns to insert values;
+     *                   cannot be <code>null</code>
+     * @param rows       the value arrays, one per row; cannot be
+     *                   <code>null</code> or empty
+     * @return the created SQL statement as <code>PreparedStatement</code> object
+     * @throws SQLException if the statement cannot be prepared
+     */
+    private PreparedStatement createInsertStatement(Connection connection, String table, String[] columns,
+                                                    List<String[]> rows) throws SQLException {
+        PreparedStatement stmt = pool.getStatementCache(connection).prepare(connection,
+                insertSql(table, columns, rows.size()), Statement.RETURN_GENERATED_KEYS);
+        int index = 1;
+        for (String[] row : rows) {
+            for (String value : row) {
+                stmt.setString(index++, value);
             }
         }
         return stmt;
     }
 
+    /**
+     * Builds the SQL text of an INSERT statement with one placeholder group per
+     * row, memoized like
+     * {@link #selectSql(String[], String[], String[], String)}.
+     */
+    private String insertSql(String table, String[] columns, int rowCount) {
+        SqlKey key = new SqlKey(SqlKey.INSERT, String.valueOf(rowCount), new String[]{table}, columns);
+        String sql = sqlTexts.get(key);
+        if (sql == null) {
+            String[] placeholders = new String[columns.length];
+            Arrays.fill(placeholders, "?");
+            String group = "(" + String.join(", ", placeholders) + ")";
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("INSERT INTO ");
+            sb.append(table).append(" (");
+            sb.append(String.join(", ", columns));
+            sb.append(") VALUES ");
+            for (int i = 0; i < rowCount; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(group);
+            }
+            sql = memoize(key, sb.toString());
+        }
+        return sql;
+    }
+
     /**
      * Creates a SQL DELETE statement with the given parameters as follows:
      *
@@ -374,16 +591,19 @@ public class DatabaseConnector {
      * otherwise
      */
     public boolean executeDeleteQuery(String table, String selection, String[] selectionArgs) {
+        Connection connection = null;
         try {
-            PreparedStatement stmt = createDeleteStatement(table, selection, selectionArgs);
+            connection = pool.borrow();
+            PreparedStatement stmt = createDeleteStatement(connection, table, selection, selectionArgs);
             if (stmt != null) {
                 stmt.executeUpdate();
             } else {
                 return false;
             }
-            close(stmt);
         } catch (SQLException e) {
             return false;
+        } finally {
+            pool.release(connection);
         }
         return true;
     }
@@ -391,8 +611,9 @@ public class DatabaseConnector {
     /**
      * Creates a SQL DELETE statement like shown in
      * {@link #executeDeleteQuery(String, String, String[])} with the same
-     * parameters.
+     * parameters on the given connection.
      *
+     * @param connection    the borrowed connection the statement is prepared on
      * @param table         the name of the table to delete from; cannot be
      *                      <code>null</code>
      * @param selection     the array with conditions; can be <code>null</code> to
@@ -402,21 +623,12 @@ public class DatabaseConnector {
      *                      values are needed
      * @return the created SQL statement as <code>PreparedStatement</code> object
      */
-    private PreparedStatement createDeleteStatement(String table, String selection, String[] selectionArgs) {
+    private PreparedStatement createDeleteStatement(Connection connection, String table, String selection,
+                                                    String[] selectionArgs) {
         PreparedStatement stmt = null;
         if (table != null) {
             try {
-                StringBuilder sb = new StringBuilder();
-                sb.append("DELETE FROM ");
-                sb.append(table);
-
-                // only if selection is available, append it
-                if (selection != null) {
-                    sb.append(" WHERE ");
-                    sb.append(selection);
-                }
-
-                stmt = connection.prepareStatement(sb.toString());
+                stmt = prepare(connection, deleteSql(table, selection));
                 // only if parameters are given, substitute them
                 if (selectionArgs != null) {
                     for (int i = 0; i < selectionArgs.length; i++) {
@@ -431,12 +643,122 @@ public class DatabaseConnector {
         return stmt;
     }
 
+    /**
+     * Builds the SQL text of a DELETE statement, memoized like
+     * {@link #selectSql(String[], String[], String[], String)}.
+     */
+    private String deleteSql(String table, String selection) {
+        SqlKey key = new SqlKey(SqlKey.DELETE, selection, new String[]{table});
+        String sql = sqlTexts.get(key);
+        if (sql == null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("DELETE FROM ");
+            sb.append(table);
+
+            // only if selection is available, append it
+            if (selection != null) {
+                sb.append(" WHERE ");
+                sb.append(selection);
+            }
+            sql = memoize(key, sb.toString());
+        }
+        return sql;
+    }
+
+    private String memoize(SqlKey key, String sql) {
+        // the shapes come from code, so the map only grows past the limit if
+        // conditions are built dynamically; stop memoizing in that case
+        if (sqlTexts.size() < MAX_MEMOIZED_STATEMENTS) {
+            sqlTexts.putIfAbsent(key, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Prepares the statement through the statement cache of the borrowed
+     * connection. Cached statements stay open and must not be closed.
+     */
+    private PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return pool.getStatementCache(connection).prepare(connection, sql);
+    }
+
+    /**
+     * Runs the given work as one transaction on a single pooled connection.
+     * All statements issued through the {@link Transaction} handed to the work
+     * are committed together. The transaction is rolled back if the work throws
+     * a <code>SQLException</code>, a runtime exception or returns
+     * <code>null</code>.
+     *
+     * @param work the statements to run; cannot be <code>null</code>
+     * @param <T>  the type of the result of the work
+     * @return the result of the work; <code>null</code> if the transaction was
+     * rolled back
+     */
+    public <T> T inTransaction(TransactionWork<T> work) {
+        Connection connection = null;
+        boolean committed = false;
+        try {
+            connection = pool.borrow();
+            connection.setAutoCommit(false);
+            T result = work.execute(new Transaction(connection));
+            if (result != null) {
+                connection.commit();
+                committed = true;
+            }
+            return result;
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "SQL error when executing transaction");
+            return null;
+        } finally {
+            if (!committed) {
+                rollback(connection);
+            }
+            resetAutoCommit(connection);
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Returns how often a prepared statement was reused from the statement
+     * cache of a pooled connection.
+     *
+     * @return the number of statement cache hits
+     */
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    /**
+     * Returns how often a statement had to be prepared because it was not in
+     * the statement cache of the pooled connection.
+     *
+     * @return the number of statement cache misses
+     */
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
+
+    /**
+     * Limits how many queries may wait for a connection while all pooled
+     * connections are in use, see {@link ConnectionPool#setMaxWaiting(int)}.
+     * Further queries fail right away like any other query that cannot reach
+     * the database.
+     *
+     * @param maxWaiting the maximum number of waiting queries
+     */
+    public void setMaxWaitingQueries(int maxWaiting) {
+        if (pool != null) {
+            pool.setMaxWaiting(maxWaiting);
+        }
+    }
+
     /**
      * Maps the <code>ResultSet</code> to a list of maps. Each list item corresponds
      * to one line in the result. The keys of the map are the column names and the
      * values of the map are the specific cell entries from the table.
      * <p>
-     * Maps the result given from the database to a list of maps.
+     * The maps are read-only {@link Row}s that share the column labels of the
+     * result, so the labels are only read once per <code>ResultSet</code>.
      *
      * @param result the ResultSet that is converted
      * @return the list of maps
@@ -445,17 +767,7 @@ public class DatabaseConnector {
         List<Map<String, Object>> results = new ArrayList<>();
         try {
             if (result != null) {
-                ResultSetMetaData meta = result.getMetaData();
-                int numColumns = meta.getColumnCount();
-                while (result.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= numColumns; ++i) {
-                        String name = meta.getColumnLabel(i);
-                        Object value = result.getObject(i);
-                        row.put(name, value);
-                    }
-                    results.add(row);
-                }
+                readRows(result, results);
             }
         } catch (SQLException e) {
             logger.log(Level.FINE, "SQL error when executing statement");
@@ -465,15 +777,26 @@ public class DatabaseConnector {
         return results;
     }
 
-    // define various close methods: for Connection, Statement and ResultSet
+    /**
+     * Reads all remaining rows of the <code>ResultSet</code> into the list.
+     */
+    static void readRows(ResultSet result, List<Map<String, Object>> rows) throws SQLException {
+        Row.Header header = Row.Header.of(result.getMetaData());
+        int size = header.size();
+        while (result.next()) {
+            Object[] values = new Object[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = result.getObject(header.columnAt(i));
+            }
+            rows.add(new Row(header, values));
+        }
+    }
+
+    // define various close methods: for the connection pool, Statement and ResultSet
 
     public void close() {
-        try {
-            if (connection != null) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            logger.log(Level.FINE, "SQL error when closing");
+        if (pool != null) {
+            pool.close();
         }
     }
 
@@ -487,6 +810,38 @@ public class DatabaseConnector {
         }
     }
 
+    private void rollback(Connection connection) {
+        try {
+            if (connection != null) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "SQL error when rolling back");
+        }
+    }
+
+    private void resetAutoCommit(Connection connection) {
+        try {
+            if (connection != null) {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // the pool drops connections that are not in auto commit mode
+            logger.log(Level.FINE, "SQL error when resetting auto commit");
+        }
+    }
+
+    private void resetFetchSize(PreparedStatement stmt) {
+        try {
+            // the statement is cached, later queries must not stream
+            if (stmt != null) {
+                stmt.setFetchSize(0);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "SQL error when resetting fetch size");
+        }
+    }
+
     private void close(ResultSet rs) {
         try {
             if (rs != null) {
@@ -497,4 +852,184 @@ public class DatabaseConnector {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * The statements that are run by
+     * {@link DatabaseConnector#inTransaction(TransactionWork)}.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface TransactionWork<T> {
+        T execute(Transaction transaction) throws SQLException;
+    }
+
+    /**
+     * Reads the rows of
+     * {@link DatabaseConnector#executeStreamingSelectQuery(String[], String[], String[], String, String[], int, CursorWork)}.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface CursorWork<T> {
+        T read(RowCursor cursor) throws SQLException, IOException;
+    }
+
+    /**
+     * {@link RowCursor} over a <code>ResultSet</code>. The column labels are
+     * read from the meta data once.
+     */
+    private static final class ResultSetCursor implements RowCursor {
+        private final ResultSet result;
+        private final String[] labels;
+
+        private ResultSetCursor(ResultSet result) throws SQLException {
+            this.result = result;
+            ResultSetMetaData meta = result.getMetaData();
+            this.labels = new String[meta.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = meta.getColumnLabel(i + 1);
+            }
+        }
+
+        @Override
+        public int getColumnCount() {
+            return labels.length;
+        }
+
+        @Override
+        public String getColumnLabel(int column) {
+            return labels[column - 1];
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            return result.next();
+        }
+
+        @Override
+        public Object getObject(int column) throws SQLException {
+            return result.getObject(column);
+        }
+    }
+
+    /**
+     * Issues statements on the connection of a running transaction. The
+     * methods take the same parameters as the corresponding
+     * <code>execute...Query</code> methods, but report errors by throwing, so
+     * that the whole transaction is rolled back.
+     */
+    public class Transaction {
+
+        private final Connection connection;
+
+        private Transaction(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * See
+         * {@link DatabaseConnector#executeSelectQuery(String[], String[], String[], String, String[])}.
+         */
+        public List<Map<String, Object>> select(String[] selection, String[] tables, String[] tableAlias,
+                                                String condition, String[] conditionArgs) throws SQLException {
+            PreparedStatement stmt = createSelectStatement(connection, selection, tables, tableAlias, condition,
+                    conditionArgs);
+            return map(checked(stmt).executeQuery());
+        }
+
+        /**
+         * See
+         * {@link DatabaseConnector#executeUpdateQuery(String, String[], String[], String, String[])}.
+         *
+         * @return the number of updated rows
+         */
+        public int update(String table, String[] modification, String[] modificationArgs, String selection,
+                          String[] selectionArgs) throws SQLException {
+            PreparedStatement stmt = createUpdateStatement(connection, table, modification, modificationArgs,
+                    selection, selectionArgs);
+            return checked(stmt).executeUpdate();
+        }
+
+        /**
+         * See {@link DatabaseConnector#executeInsertQuery(String, String[], String[])}.
+         *
+         * @return the generated key of the inserted row; -1 if the table has no
+         * auto increment column
+         */
+        public int insert(String table, String[] columns, String[] values) throws SQLException {
+            List<Integer> keys = batchInsert(table, columns, Collections.singletonList(values));
+            return keys.isEmpty() ? -1 : keys.get(0);
+        }
+
+        /**
+         * See {@link DatabaseConnector#executeBatchInsert(String, String[], List)}.
+         *
+         * @return the generated keys of the inserted rows in insertion order
+         */
+        public List<Integer> batchInsert(String table, String[] columns, List<String[]> rows) throws SQLException {
+            if (table == null || columns == null || rows == null) {
+                throw new SQLException("Table, columns and rows are required");
+            }
+            return insertRows(connection, table, columns, rows);
+        }
+
+        /**
+         * See {@link DatabaseConnector#executeDeleteQuery(String, String, String[])}.
+         *
+         * @return the number of deleted rows
+         */
+        public int delete(String table, String selection, String[] selectionArgs) throws SQLException {
+            PreparedStatement stmt = createDeleteStatement(connection, table, selection, selectionArgs);
+            return checked(stmt).executeUpdate();
+        }
+
+        private PreparedStatement checked(PreparedStatement stmt) throws SQLException {
+            if (stmt == null) {
+                throw new SQLException("Statement could not be prepared");
+            }
+            return stmt;
+        }
+    }
+
+    /**
+     * Identifies the shape of a generated SQL statement: the kind of statement,
+     * its condition and the arrays it was built from.
+     */
+    private static final class SqlKey {
+        private static final int SELECT = 0;
+        private static final int UPDATE = 1;
+        private static final int DELETE = 2;
+        private static final int INSERT = 3;
+
+        private final int kind;
+        private final String condition;
+        private final String[][] parts;
+        private final int hash;
+
+        private SqlKey(int kind, String condition, String[]... parts) {
+            this.kind = kind;
+            this.condition = condition;
+            this.parts = parts;
+            this.hash = 31 * (31 * kind + Objects.hashCode(condition)) + Arrays.deepHashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SqlKey)) {
+                return false;
+            }
+            SqlKey other = (SqlKey) o;
+            return kind == other.kind && hash == other.hash && Objects.equals(condition, other.condition)
+                    && Arrays.deepEquals(parts, other.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package model;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * One row of a query result. <br>
+ * <br>
+ * All rows of a result share one {@link Header} that maps the column labels to
+ * positions, so a row only stores its values in an array. Compared to a
+ * <code>HashMap</code> per row this saves the key references, the entry objects
+ * and the hash table of every row. <br>
+ * <br>
+ * The row is a read-only <code>Map</code> from column label to value, so it can
+ * be used and serialized like the maps returned before.
+ */
+public final class Row extends AbstractMap<String, Object> {
+
+    private final Header header;
+    private final Object[] values;
+
+    Row(Header header, Object[] values) {
+        this.header = header;
+        this.values = values;
+    }
+
+    /**
+     * @param position the position of the column in the header, starting at 0
+     * @return the value of the column; may be <code>null</code>
+     */
+    public Object get(int position) {
+        return values[position];
+    }
+
+    @Override
+    public Object get(Object key) {
+        int position = header.positionOf(key);
+        return position < 0 ? null : values[position];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return header.positionOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < values.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<String, Object> entry = new SimpleImmutableEntry<>(header.labels[position],
+                                values[position]);
+                        position++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+
+    /**
+     * Column labels of a result and their positions, computed once per
+     * <code>ResultSet</code>. If several columns have the same label, the last
+     * one wins, like it did when every row was put into a <code>HashMap</code>.
+     */
+    static final class Header {
+        private final String[] labels;
+        // the JDBC column number that is read for each position
+        private final int[] columns;
+        private final Map<String, Integer> positions;
+
+        private Header(String[] labels, int[] columns, Map<String, Integer> positions) {
+            this.labels = labels;
+            this.columns = columns;
+            this.positions = positions;
+        }
+
+        static Header of(ResultSetMetaData meta) throws SQLException {
+            int count = meta.getColumnCount();
+            Map<String, Integer> positions = new HashMap<>();
+            String[] labels = new String[count];
+            int[] columns = new int[count];
+            int size = 0;
+            for (int i = 1; i <= count; i++) {
+                String label = meta.getColumnLabel(i);
+                Integer position = positions.get(label);
+                if (position == null) {
+                    positions.put(label, size);
+                    labels[size] = label;
+                    columns[size] = i;
+                    size++;
+                } else {
+                    columns[position] = i;
+                }
+            }
+            if (size < count) {
+                String[] uniqueLabels = new String[size];
+                int[] uniqueColumns = new int[size];
+                System.arraycopy(labels, 0, uniqueLabels, 0, size);
+                System.arraycopy(columns, 0, uniqueColumns, 0, size);
+                labels = uniqueLabels;
+                columns = uniqueColumns;
+            }
+            return new Header(labels, columns, positions);
+        }
+
+        int size() {
+            return labels.length;
+        }
+
+        int columnAt(int position) {
+            return columns[position];
+        }
+
+        int positionOf(Object label) {
+            Integer position = positions.get(label);
+            return position == null ? -1 : position;
+        }
+    }
+}
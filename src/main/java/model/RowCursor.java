@@ -0,0 +1,41 @@
+package model;
+
+import java.sql.SQLException;
+
+/**
+ * Forward-only view on the rows of a SELECT query. Only the current row is held
+ * in memory, so results of any size can be processed with constant memory. <br>
+ * <br>
+ * Columns are numbered from 1, like in JDBC.
+ */
+public interface RowCursor {
+
+    /**
+     * @return the number of columns of every row
+     */
+    int getColumnCount();
+
+    /**
+     * @param column the column number, starting at 1
+     * @return the label of the column, i.e. its alias or its name
+     */
+    String getColumnLabel(int column);
+
+    /**
+     * Moves the cursor to the next row. Must be called once before the first
+     * row can be read.
+     *
+     * @return <code>true</code> if there is a next row; <code>false</code> if
+     * all rows were read
+     * @throws SQLException if the next row cannot be fetched
+     */
+    boolean next() throws SQLException;
+
+    /**
+     * @param column the column number, starting at 1
+     * @return the value of the column in the current row; may be
+     * <code>null</code>
+     * @throws SQLException if the value cannot be read
+     */
+    Object getObject(int column) throws SQLException;
+}
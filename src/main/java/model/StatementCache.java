@@ -0,0 +1,106 @@
+package model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Least recently used cache of prepared statements that belong to one pooled
+ * connection. The statements are keyed by their SQL text and are reused
+ * instead of being prepared again for every query. <br>
+ * <br>
+ * A cache is only accessed by the thread that currently borrowed its
+ * connection, so it does not need to be thread-safe itself. The hit and miss
+ * counters are shared by all caches of a pool.
+ */
+class StatementCache {
+
+    private static final Logger logger = Logger.getLogger(StatementCache.class.getName());
+
+    private final Map<String, PreparedStatement> statements;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * @param capacity the maximum number of statements kept open
+     * @param hits     the counter incremented when a statement is reused
+     * @param misses   the counter incremented when a statement is prepared
+     */
+    StatementCache(int capacity, AtomicLong hits, AtomicLong misses) {
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    close(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached statement for the SQL text or prepares a new one on the
+     * given connection. Parameters of a reused statement are cleared.
+     *
+     * @param connection the connection the cache belongs to
+     * @param sql        the SQL text of the statement
+     * @return the prepared statement; must not be closed by the caller
+     * @throws SQLException if the statement cannot be prepared
+     */
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Like {@link #prepare(Connection, String)}, but prepares a missing
+     * statement with the given generated keys flag. Statements are still keyed
+     * by their SQL text only, so the same text must always be prepared with the
+     * same flag.
+     *
+     * @param connection        the connection the cache belongs to
+     * @param sql               the SQL text of the statement
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+     *                          {@link Statement#NO_GENERATED_KEYS}
+     * @return the prepared statement; must not be closed by the caller
+     * @throws SQLException if the statement cannot be prepared
+     */
+    PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            hits.incrementAndGet();
+            stmt.clearParameters();
+            return stmt;
+        }
+        misses.incrementAndGet();
+        stmt = connection.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(sql, stmt);
+        return stmt;
+    }
+
+    /**
+     * Closes all cached statements.
+     */
+    void clear() {
+        for (PreparedStatement stmt : statements.values()) {
+            close(stmt);
+        }
+        statements.clear();
+    }
+
+    private static void close(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "SQL error when closing cached statement");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package rest_client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bodies of responses the server sent with an ETag, by request. <br>
+ * <br>
+ * The ETag is sent back with the next request for the same data; if the data
+ * did not change, the server answers 304 without a body and the kept body is
+ * used instead. The least recently used entry is dropped once the cache is
+ * full.
+ */
+public class ETagCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private final Map<String, Entry> entries;
+
+    public ETagCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ETagCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ETagCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param key identifies the request, e.g. the path with the query
+     * @return the kept response; <code>null</code> if there is none
+     */
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Keeps the body of a response, replacing the one kept for the request
+     * before. Without an ETag the response cannot be revalidated, so the kept
+     * one is dropped instead.
+     *
+     * @param key  identifies the request, e.g. the path with the query
+     * @param etag the ETag of the response; can be <code>null</code> or empty
+     * @param body the body of the response
+     */
+    public synchronized void put(String key, String etag, String body) {
+        if (etag == null || etag.isEmpty() || body == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, new Entry(etag, body));
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * A response body together with its ETag.
+     */
+    public static final class Entry {
+        private final String etag;
+        private final String body;
+
+        private Entry(String etag, String body) {
+            this.etag = etag;
+            this.body = body;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
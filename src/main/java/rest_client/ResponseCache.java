@@ -0,0 +1,132 @@
+package rest_client;
+
+import utils.ExpiringMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Responses of the server by request, used again until their time to live
+ * expired, so that data that was just shown costs no request. <br>
+ * <br>
+ * The time to live is given per request, so that data that rarely changes can
+ * be kept longer than data that changes with every reservation. If the same
+ * request is sent by several threads at once, only the first one asks the
+ * server and the others get its response. A response that could not be
+ * loaded (<code>null</code>) is not kept. The least recently used entry is
+ * dropped once the cache is full.
+ *
+ * @param <V> the type of the responses
+ */
+public class ResponseCache<V> {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final ExpiringMap<String, V> entries;
+    // requests that are being loaded, so that others wait for them instead of sending them again
+    private final Map<String, CompletableFuture<V>> loading = new HashMap<>();
+    // incremented by every invalidation, so that a response loaded before is not kept
+    private long generation;
+
+    public ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ResponseCache(int maxEntries) {
+        this.entries = new ExpiringMap<>(maxEntries);
+    }
+
+    /**
+     * Returns the kept response of the request, or loads it if there is none
+     * or it expired. If another thread is loading the same request, waits for
+     * its response instead.
+     *
+     * @param key              identifies the request, e.g. the path with the
+     *                         query
+     * @param timeToLiveMillis how long a loaded response is used again
+     * @param loader           loads the response; returns <code>null</code> if
+     *                         it could not be loaded
+     * @return the response; <code>null</code> if it could not be loaded
+     */
+    public V get(String key, long timeToLiveMillis, Supplier<V> loader) {
+        CompletableFuture<V> load;
+        CompletableFuture<V> running;
+        long loadGeneration;
+        synchronized (this) {
+            V cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            running = loading.get(key);
+            load = running == null ? new CompletableFuture<>() : null;
+            if (running == null) {
+                loading.put(key, load);
+            }
+            loadGeneration = generation;
+        }
+        if (running != null) {
+            return await(running);
+        }
+
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            finishLoading(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            finishLoading(key, load);
+            if (value != null && loadGeneration == generation) {
+                entries.put(key, value, timeToLiveMillis);
+            }
+        }
+        load.complete(value);
+        return value;
+    }
+
+    /**
+     * Drops the responses of all requests whose key matches, e.g. because a
+     * reservation changed them. Requests that are being loaded are sent again
+     * by the next caller.
+     *
+     * @param keys matches the keys of the requests to drop
+     */
+    public synchronized void invalidate(Predicate<String> keys) {
+        generation++;
+        entries.removeIf(keys);
+        loading.keySet().removeIf(keys);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+        loading.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Removes the load, unless it was invalidated and another one started meanwhile.
+    private synchronized void finishLoading(String key, CompletableFuture<V> load) {
+        loading.remove(key, load);
+    }
+
+    // Waits outside of the lock for the response another thread loads.
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package rest_client;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import utils.StringNames;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Live view of the taken seats of one flight date. <br>
+ * <br>
+ * The subscription reads the server-sent events of
+ * <code>/seatNumbers/events</code> and keeps the taken seat numbers in a bit
+ * set: the first event holds all taken seats, the following ones the seats
+ * that were taken or released since. After every event the change listener is
+ * called on the thread that reads the events, so a GUI must hand it over to
+ * its own thread. Until {@link #isReady()} the seats are not known, e.g.
+ * because the connection failed, and must be requested otherwise.
+ */
+public class SeatSubscription implements Flow.Subscriber<String>, AutoCloseable {
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newHttpClient();
+    private static final Gson GSON = new Gson();
+
+    private static final Logger logger = Logger.getLogger(SeatSubscription.class.getName());
+
+    private final int flightDateId;
+    private final Runnable changeListener;
+    // guarded by this
+    private final BitSet taken = new BitSet();
+    private volatile boolean ready;
+    private volatile boolean closed;
+    private volatile Flow.Subscription subscription;
+
+    // the event that is being read
+    private String event;
+    private final StringBuilder data = new StringBuilder();
+
+    SeatSubscription(int flightDateId, Runnable changeListener) {
+        this.flightDateId = flightDateId;
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Connects to the seat events of the flight date.
+     *
+     * @param baseUrl        the URL of the server, e.g. http://localhost:4568
+     * @param flightDateId   the id of the flight date
+     * @param changeListener called after the taken seats changed; must not
+     *                       block
+     * @return the subscription; must be closed when the seats are not needed
+     * anymore
+     */
+    static SeatSubscription open(String baseUrl, int flightDateId, Runnable changeListener) {
+        SeatSubscription seatSubscription = new SeatSubscription(flightDateId, changeListener);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/seatNumbers/events?"
+                        + StringNames.flightDateId + "=" + flightDateId))
+                .header("Accept", "text/event-stream")
+                .build();
+        HTTP_CLIENT.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(seatSubscription))
+                .whenComplete((response, error) -> seatSubscription.ready = false);
+        return seatSubscription;
+    }
+
+    public int getFlightDateId() {
+        return flightDateId;
+    }
+
+    /**
+     * @return <code>true</code> if the taken seats were received and the
+     * connection is still open
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized boolean isTaken(int seatNumber) {
+        return taken.get(seatNumber);
+    }
+
+    /**
+     * @return the taken seat numbers in ascending order
+     */
+    public synchronized List<Integer> getTakenSeats() {
+        List<Integer> seatNumbers = new ArrayList<>(taken.cardinality());
+        for (int i = taken.nextSetBit(0); i >= 0; i = taken.nextSetBit(i + 1)) {
+            seatNumbers.add(i);
+        }
+        return seatNumbers;
+    }
+
+    /**
+     * @return a copy of the taken seats, where bit n is set if seat n is taken
+     */
+    public synchronized BitSet getTakenSeatBitmap() {
+        return (BitSet) taken.clone();
+    }
+
+    /**
+     * Disconnects from the seat events.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ready = false;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (closed) {
+            subscription.cancel();
+        } else {
+            subscription.request(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Reads one line of the event stream; an empty line ends an event.
+     */
+    @Override
+    public void onNext(String line) {
+        if (line.isEmpty()) {
+            dispatch();
+        } else if (line.startsWith("event:")) {
+            event = fieldValue(line, "event:");
+        } else if (line.startsWith("data:")) {
+            if (data.length() > 0) {
+                data.append('\n');
+            }
+            data.append(fieldValue(line, "data:"));
+        }
+        // comments and other fields are ignored
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        ready = false;
+        if (!closed) {
+            logger.log(Level.WARNING, "Seat events of flight date " + flightDateId + " were interrupted", throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        ready = false;
+    }
+
+    private static String fieldValue(String line, String field) {
+        String value = line.substring(field.length());
+        return value.startsWith(" ") ? value.substring(1) : value;
+    }
+
+    // Applies the event that was read completely.
+    private void dispatch() {
+        String name = event;
+        String json = data.toString();
+        event = null;
+        data.setLength(0);
+        if (name == null || json.isEmpty()) {
+            return;
+        }
+
+        if ("error".equals(name)) {
+            logger.log(Level.WARNING, "Seat events of flight date " + flightDateId + " refused: " + json);
+            ready = false;
+            return;
+        }
+        List<Integer> seatNumbers = new ArrayList<>();
+        try {
+            for (JsonElement seat : GSON.fromJson(json, JsonObject.class).getAsJsonArray("seats")) {
+                seatNumbers.add(seat.getAsInt());
+            }
+        } catch (JsonParseException | IllegalStateException | ClassCastException | NullPointerException e) {
+            logger.log(Level.WARNING, "Invalid seat event: " + json, e);
+            return;
+        }
+
+        synchronized (this) {
+            if (StringNames.seatsEvent.equals(name)) {
+                taken.clear();
+                seatNumbers.forEach(taken::set);
+                ready = !closed;
+            } else if (StringNames.seatTakenEvent.equals(name)) {
+                seatNumbers.forEach(taken::set);
+            } else if (StringNames.seatReleasedEvent.equals(name)) {
+                seatNumbers.forEach(taken::clear);
+            } else {
+                return;
+            }
+        }
+        changeListener.run();
+    }
+}
@@ -0,0 +1,75 @@
+package rest_server;
+
+import utils.ExpiringMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers successful authorizations, so that repeated requests with the same
+ * authorization header do not query the customers table every time. <br>
+ * <br>
+ * Entries are keyed by the customer id and a SHA-256 hash of the header, so no
+ * password is kept in memory. They expire after a fixed time and the least
+ * recently used entry is dropped once the cache is full. Failed authorizations
+ * are never cached, so a customer is found as soon as they exist.
+ */
+public class AuthCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final long timeToLiveMillis;
+    private final ExpiringMap<String, Boolean> authorized;
+
+    public AuthCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    public AuthCache(int maxEntries, long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.authorized = new ExpiringMap<>(maxEntries);
+    }
+
+    /**
+     * @param authString the authorization header
+     * @param customerId the id of the customer
+     * @return <code>true</code> if the header was authorized for the customer
+     * and the entry has not expired yet
+     */
+    public synchronized boolean isAuthorized(String authString, String customerId) {
+        return authorized.get(key(authString, customerId)) != null;
+    }
+
+    /**
+     * Remembers that the header was authorized for the customer.
+     *
+     * @param authString the authorization header
+     * @param customerId the id of the customer
+     */
+    public synchronized void put(String authString, String customerId) {
+        authorized.put(key(authString, customerId), Boolean.TRUE, timeToLiveMillis);
+    }
+
+    /**
+     * Forgets all authorizations of the customer, e.g. after their e-mail or
+     * password changed.
+     *
+     * @param customerId the id of the customer
+     */
+    public synchronized void invalidate(String customerId) {
+        String prefix = customerId + ":";
+        authorized.removeIf(key -> key.startsWith(prefix));
+    }
+
+    public synchronized void clear() {
+        authorized.clear();
+    }
+
+    public synchronized int size() {
+        return authorized.size();
+    }
+
+    private static String key(String authString, String customerId) {
+        return customerId + ":" + ExpiringMap.hash(authString);
+    }
+}
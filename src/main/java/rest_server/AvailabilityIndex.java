@@ -0,0 +1,312 @@
+package rest_server;
+
+import model.DatabaseConnector;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory index of the flights that can still be booked, ordered by date. <br>
+ * <br>
+ * The index is built from one join over all flight dates from today on and
+ * answers which dates have flights with free seats and which flights start on
+ * a date without a query. Available seats are updated through
+ * {@link SeatInventory.SeatListener} whenever a booking changes them, flights
+ * whose launch time has passed are skipped and past dates are dropped. The
+ * whole index is built again after the refresh interval, so that new flights
+ * are picked up.
+ */
+public class AvailabilityIndex implements SeatInventory.SeatListener {
+
+    // rows fetched per round trip while building the index
+    private static final int LOAD_FETCH_SIZE = 500;
+
+    private static final Logger logger = Logger.getLogger(AvailabilityIndex.class.getName());
+
+    private final DatabaseConnector dbConnector;
+    private final long refreshIntervalNanos;
+    // starts at the current time, so that versions are not reused after a restart
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+    private volatile Index index;
+
+    public AvailabilityIndex(DatabaseConnector dbConnector) {
+        this(dbConnector, CatalogCache.DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    public AvailabilityIndex(DatabaseConnector dbConnector, long refreshIntervalMillis) {
+        this.dbConnector = dbConnector;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+    }
+
+    /**
+     * Returns the flights that start on the date and can still be booked, in
+     * the same format as the query of <code>/schedules/by-date</code>.
+     *
+     * @param dateId the id of the date
+     * @return the flights; empty if there are none; <code>null</code> if the
+     * index could not be built
+     */
+    public List<Map<String, Object>> getSchedules(int dateId) {
+        Index current = get();
+        if (current == null) {
+            return null;
+        }
+        return bookableSchedules(current, current.datesById.get(dateId));
+    }
+
+    /**
+     * Returns the flights that start on the calendar date and can still be
+     * booked, in the same format as the query of
+     * <code>/schedules/by-calendar-date</code>.
+     *
+     * @param date the date
+     * @return the flights; empty if there are none; <code>null</code> if the
+     * index could not be built
+     */
+    public List<Map<String, Object>> getSchedules(LocalDate date) {
+        Index current = get();
+        if (current == null) {
+            return null;
+        }
+        return bookableSchedules(current, date);
+    }
+
+    /**
+     * Returns the dates that have at least one flight that can still be
+     * booked, ordered by date, in the same format as the query of
+     * <code>/dates-with-flights</code>.
+     *
+     * @return the dates; empty if there are none; <code>null</code> if the
+     * index could not be built
+     */
+    public List<Map<String, Object>> getDatesWithFlights() {
+        Index current = get();
+        if (current == null) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> dates = new ArrayList<>();
+        for (List<FlightSlot> slots : current.slotsByDate.tailMap(now.toLocalDate(), true).values()) {
+            for (FlightSlot slot : slots) {
+                if (slot.isBookable(now)) {
+                    Map<String, Object> date = new LinkedHashMap<>();
+                    date.put("dateId", slot.dateId);
+                    date.put("date", slot.date);
+                    dates.add(date);
+                    break;
+                }
+            }
+        }
+        return dates;
+    }
+
+    // the bookable flights of the date, looked up by date instead of scanning all dates
+    private static List<Map<String, Object>> bookableSchedules(Index current, LocalDate date) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Map<String, Object>> schedules = new ArrayList<>();
+        if (date != null && !date.isBefore(now.toLocalDate())) {
+            for (FlightSlot slot : current.slotsByDate.getOrDefault(date, Collections.emptyList())) {
+                if (slot.isBookable(now)) {
+                    schedules.add(slot.toMap());
+                }
+            }
+        }
+        return schedules;
+    }
+
+    @Override
+    public void availableSeatsChanged(int flightDateId, int availableSeats) {
+        Index current = index;
+        if (current != null) {
+            FlightSlot slot = current.slotsByFlightDateId.get(flightDateId);
+            if (slot != null) {
+                slot.availableSeats = availableSeats;
+            }
+        }
+    }
+
+    /**
+     * Returns the version of the index, which changes whenever the index is
+     * built again. Changes of the available seats keep the version.
+     *
+     * @return the version; 0 if the index was not built yet
+     */
+    public long getVersion() {
+        Index current = index;
+        return current == null ? 0 : current.version;
+    }
+
+    /**
+     * Drops the index, so that it is built again on next access, e.g. after
+     * flights were added.
+     */
+    public void invalidate() {
+        index = null;
+    }
+
+    private Index get() {
+        Index current = index;
+        if (current == null || System.nanoTime() - current.loadedAt >= refreshIntervalNanos) {
+            synchronized (this) {
+                current = index;
+                if (current == null || System.nanoTime() - current.loadedAt >= refreshIntervalNanos) {
+                    Index loaded = load();
+                    if (loaded == null) {
+                        logger.log(Level.WARNING, "Availability index could not be built");
+                    } else {
+                        index = loaded;
+                        current = loaded;
+                    }
+                }
+            }
+        }
+        if (current != null) {
+            // drop the dates that have passed since the index was built
+            current.slotsByDate.headMap(LocalDate.now(), false).clear();
+        }
+        return current;
+    }
+
+    private Index load() {
+        Index loaded = new Index(versions.incrementAndGet());
+        Integer rows = dbConnector.executeStreamingSelectQuery(
+                new String[]{"f.name as flightName", "f.flight_duration", "f.view_type",
+                        "c.name as companyName", "fs.launch_time", "fd.available_seats",
+                        "fd.id as flightDateId", "c.id as companyId", "f.id as flightId",
+                        "d.id as dateId", "d.date"},
+                new String[]{DatabaseConnector.FLIGHTS, DatabaseConnector.COMPANIES,
+                        DatabaseConnector.FLIGHT_SCHEDULES, DatabaseConnector.FLIGHT_DATES,
+                        DatabaseConnector.DATES},
+                new String[]{"f", "c", "fs", "fd", "d"},
+                "fd.dateId = d.id AND fd.flightScheduleId = fs.id " +
+                        "AND fs.flightId = f.id AND fs.companyId = c.id AND d.date >= CURDATE()",
+                null,
+                LOAD_FETCH_SIZE,
+                cursor -> {
+                    int count = 0;
+                    while (cursor.next()) {
+                        FlightSlot slot = new FlightSlot(cursor.getObject(1), cursor.getObject(2),
+                                cursor.getObject(3), cursor.getObject(4), (Time) cursor.getObject(5),
+                                ((Number) cursor.getObject(6)).intValue(), ((Number) cursor.getObject(7)).intValue(),
+                                cursor.getObject(8), cursor.getObject(9), ((Number) cursor.getObject(10)).intValue(),
+                                (Date) cursor.getObject(11));
+                        loaded.add(slot);
+                        count++;
+                    }
+                    return count;
+                });
+        return rows == null ? null : loaded;
+    }
+
+    /**
+     * The flights by date, built at one point in time. Only the available
+     * seats of the slots change afterwards.
+     */
+    private static final class Index {
+        private final NavigableMap<LocalDate, List<FlightSlot>> slotsByDate = new ConcurrentSkipListMap<>();
+        private final Map<Integer, LocalDate> datesById = new HashMap<>();
+        private final Map<Integer, FlightSlot> slotsByFlightDateId = new HashMap<>();
+        private final long loadedAt = System.nanoTime();
+        private final long version;
+
+        private Index(long version) {
+            this.version = version;
+        }
+
+        private void add(FlightSlot slot) {
+            LocalDate date = slot.date.toLocalDate();
+            slotsByDate.computeIfAbsent(date, key -> new ArrayList<>()).add(slot);
+            datesById.put(slot.dateId, date);
+            slotsByFlightDateId.put(slot.flightDateId, slot);
+        }
+    }
+
+    /**
+     * One flight on one date. The column values are kept as read from the
+     * database, so they are serialized like the query result.
+     */
+    public static final class FlightSlot {
+        private final Object flightName;
+        private final Object flightDuration;
+        private final Object viewType;
+        private final Object companyName;
+        private final Time launchTime;
+        private final int flightDateId;
+        private final Object companyId;
+        private final Object flightId;
+        private final int dateId;
+        private final Date date;
+        private volatile int availableSeats;
+
+        private FlightSlot(Object flightName, Object flightDuration, Object viewType, Object companyName,
+                           Time launchTime, int availableSeats, int flightDateId, Object companyId, Object flightId,
+                           int dateId, Date date) {
+            this.flightName = flightName;
+            this.flightDuration = flightDuration;
+            this.viewType = viewType;
+            this.companyName = companyName;
+            this.launchTime = launchTime;
+            this.availableSeats = availableSeats;
+            this.flightDateId = flightDateId;
+            this.companyId = companyId;
+            this.flightId = flightId;
+            this.dateId = dateId;
+            this.date = date;
+        }
+
+        public int getFlightDateId() {
+            return flightDateId;
+        }
+
+        public int getAvailableSeats() {
+            return availableSeats;
+        }
+
+        public LocalDate getDate() {
+            return date.toLocalDate();
+        }
+
+        public LocalTime getLaunchTime() {
+            return launchTime.toLocalTime();
+        }
+
+        // the flight has free seats and has not launched yet
+        private boolean isBookable(LocalDateTime now) {
+            if (availableSeats <= 0) {
+                return false;
+            }
+            LocalDate day = getDate();
+            return day.isAfter(now.toLocalDate())
+                    || (day.isEqual(now.toLocalDate()) && getLaunchTime().isAfter(now.toLocalTime()));
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("flightName", flightName);
+            map.put("flight_duration", flightDuration);
+            map.put("view_type", viewType);
+            map.put("companyName", companyName);
+            map.put("launch_time", launchTime);
+            map.put("available_seats", availableSeats);
+            map.put("flightDateId", flightDateId);
+            map.put("companyId", companyId);
+            map.put("flightId", flightId);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package rest_server;
+
+import com.google.gson.Gson;
+import model.DatabaseConnector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-through cache of tables that rarely change, like the space companies,
+ * the space flights and the dates. <br>
+ * <br>
+ * Each table is held as an immutable {@link Snapshot} with its rows, an index
+ * by id and the rows already serialized to JSON, so that a repeated request
+ * needs neither a query nor serialization. A snapshot is loaded on first access
+ * and loaded again once it is older than the refresh interval or after
+ * {@link #invalidate(String)}. If loading fails, the previous snapshot is kept.
+ * <br>
+ * <br>
+ * Every snapshot has a version, from which its ETag is derived. A snapshot that
+ * is loaded again with the same content keeps the version of the previous one,
+ * so clients can revalidate their copy across refreshes.
+ */
+public class CatalogCache {
+
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    // rows fetched per round trip while loading a table
+    private static final int LOAD_FETCH_SIZE = 500;
+
+    private static final Logger logger = Logger.getLogger(CatalogCache.class.getName());
+
+    private final DatabaseConnector dbConnector;
+    private final Gson gson;
+    private final long refreshIntervalNanos;
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    // starts at the current time, so that versions are not reused after a restart
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    public CatalogCache(DatabaseConnector dbConnector, Gson gson) {
+        this(dbConnector, gson, DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    public CatalogCache(DatabaseConnector dbConnector, Gson gson, long refreshIntervalMillis) {
+        this.dbConnector = dbConnector;
+        this.gson = gson;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+    }
+
+    /**
+     * Returns the snapshot of the table, loading it if it is missing or older
+     * than the refresh interval.
+     *
+     * @param table the name of the table
+     * @return the snapshot; <code>null</code> if the table was never loaded
+     * successfully
+     */
+    public Snapshot get(String table) {
+        Snapshot snapshot = snapshots.get(table);
+        if (snapshot != null && !isExpired(snapshot)) {
+            return snapshot;
+        }
+        // one thread loads, the others wait for its result instead of querying as well
+        synchronized (this) {
+            snapshot = snapshots.get(table);
+            if (snapshot != null && !isExpired(snapshot)) {
+                return snapshot;
+            }
+            Snapshot loaded = load(table, snapshot);
+            if (loaded == null) {
+                logger.log(Level.WARNING, "Table " + table + " could not be loaded into the catalog cache");
+                return snapshot;
+            }
+            snapshots.put(table, loaded);
+            return loaded;
+        }
+    }
+
+    /**
+     * Drops the snapshot of the table, so that it is loaded again on next
+     * access. Must be called after the table was changed.
+     *
+     * @param table the name of the table
+     */
+    public void invalidate(String table) {
+        snapshots.remove(table);
+    }
+
+    public void invalidateAll() {
+        snapshots.clear();
+    }
+
+    private boolean isExpired(Snapshot snapshot) {
+        return System.nanoTime() - snapshot.loadedAt >= refreshIntervalNanos;
+    }
+
+    private Snapshot load(String table, Snapshot previous) {
+        List<Map<String, Object>> rows = dbConnector.executeStreamingSelectQuery(
+                new String[]{"*"},
+                new String[]{table},
+                null, null, null,
+                LOAD_FETCH_SIZE,
+                cursor -> {
+                    List<Map<String, Object>> result = new ArrayList<>();
+                    while (cursor.next()) {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        for (int i = 1; i <= cursor.getColumnCount(); i++) {
+                            row.put(cursor.getColumnLabel(i), cursor.getObject(i));
+                        }
+                        result.add(Collections.unmodifiableMap(row));
+                    }
+                    return result;
+                });
+        if (rows == null) {
+            return null;
+        }
+        byte[] json = gson.toJson(rows).getBytes(StandardCharsets.UTF_8);
+        long version = previous != null && Arrays.equals(previous.json, json)
+                ? previous.version : versions.incrementAndGet();
+        return new Snapshot(table, version, Collections.unmodifiableList(rows), json, System.nanoTime());
+    }
+
+    /**
+     * Immutable content of one table at the time it was loaded.
+     */
+    public static final class Snapshot {
+        private final String table;
+        private final long version;
+        private final List<Map<String, Object>> rows;
+        private final NavigableMap<Integer, Map<String, Object>> rowsById = new TreeMap<>();
+        private final byte[] json;
+        private final long loadedAt;
+
+        private Snapshot(String table, long version, List<Map<String, Object>> rows, byte[] json,
+                         long loadedAt) {
+            this.table = table;
+            this.version = version;
+            this.rows = rows;
+            this.json = json;
+            this.loadedAt = loadedAt;
+            for (Map<String, Object> row : rows) {
+                if (row.get("id") instanceof Number) {
+                    rowsById.put(((Number) row.get("id")).intValue(), row);
+                }
+            }
+        }
+
+        /**
+         * @return all rows of the table; cannot be modified
+         */
+        public List<Map<String, Object>> getRows() {
+            return rows;
+        }
+
+        /**
+         * @param id the id of the row
+         * @return the row; <code>null</code> if the table has no row with the id
+         */
+        public Map<String, Object> get(int id) {
+            return rowsById.get(id);
+        }
+
+        /**
+         * Returns the rows with an id greater than the given one, ordered by
+         * id, e.g. to answer a page of the table.
+         *
+         * @param afterId the id after which the rows start; 0 to start with
+         *                the first row
+         * @param maxRows the maximum number of rows
+         * @return the rows; empty if there are none
+         */
+        public List<Map<String, Object>> getRowsAfter(int afterId, int maxRows) {
+            List<Map<String, Object>> page = new ArrayList<>(Math.min(maxRows, rowsById.size()));
+            for (Map<String, Object> row : rowsById.tailMap(afterId, false).values()) {
+                if (page.size() == maxRows) {
+                    break;
+                }
+                page.add(row);
+            }
+            return page;
+        }
+
+        /**
+         * @return all rows serialized as a JSON array in UTF-8; must not be
+         * modified
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return the version of the content; the same as the version of the
+         * previous snapshot if the content did not change
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return a strong ETag of the content, including the quotes
+         */
+        public String getETag() {
+            return "\"" + table + "-" + version + "\"";
+        }
+
+        public boolean isEmpty() {
+            return rows.isEmpty();
+        }
+    }
+}
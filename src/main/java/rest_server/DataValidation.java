@@ -2,6 +2,8 @@ package rest_server;
 
 import model.DatabaseConnector;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
@@ -9,9 +11,31 @@ import java.util.Map;
 public class DataValidation {
 
     private final DatabaseConnector dbConnector;
+    private final SeatInventory seatInventory;
+    private final AuthCache authCache;
 
     public DataValidation(DatabaseConnector dbConnector) {
+        this(dbConnector, new SeatInventory(dbConnector));
+    }
+
+    //Uses the given seat inventory for seat checks, e.g. one that was loaded on startup.
+    public DataValidation(DatabaseConnector dbConnector, SeatInventory seatInventory) {
+        this(dbConnector, seatInventory, new AuthCache());
+    }
+
+    //Uses the given cache to remember successful authorizations.
+    public DataValidation(DatabaseConnector dbConnector, SeatInventory seatInventory, AuthCache authCache) {
         this.dbConnector = dbConnector;
+        this.seatInventory = seatInventory;
+        this.authCache = authCache;
+    }
+
+    public SeatInventory getSeatInventory() {
+        return seatInventory;
+    }
+
+    public AuthCache getAuthCache() {
+        return authCache;
     }
 
     //Verifies if a given string represents a valid positive integer.
@@ -26,6 +50,19 @@ public class DataValidation {
         }
     }
 
+    //Verifies if a given string represents a calendar date in ISO format, e.g. 2025-03-22.
+    public boolean isValidDate(String input) {
+        if (input == null || input.isEmpty()) {
+            return false;
+        }
+        try {
+            LocalDate.parse(input);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
     //Checks if a specific id exists in the given database table.
     public boolean isValidId(int id, String table) {
         List<Map<String, Object>> result = dbConnector.executeSelectQuery(new String[]{"*"}, new String[]{table},
@@ -40,12 +77,8 @@ public class DataValidation {
             return false;
         }
 
-        List<Map<String, Object>> result = dbConnector.executeSelectQuery(new String[]{"*"},
-                new String[]{DatabaseConnector.FLIGHT_DATES}, null, "id = ?",
-                new String[]{String.valueOf(flightDateId)});
-
-        //checks if more or equal seats are available.
-        return !result.isEmpty() && seats <= (int) result.get(0).get("available_seats");
+        //checks if more or equal seats are available, without a query once the flight date is loaded.
+        return seatInventory.hasAvailableSeats(flightDateId, seats);
     }
 
     //Authenticates a user based on a provided authorization string and userId.
@@ -54,6 +87,11 @@ public class DataValidation {
             return false;
         }
 
+        //skips the query if the same header was authorized for this user recently.
+        if (authCache.isAuthorized(authString, userId)) {
+            return true;
+        }
+
         //extracts data before decoding it back to original string.
         String[] authParts = authString.split("\\s+");
         String authInfo = authParts[1];
@@ -73,7 +111,11 @@ public class DataValidation {
                 new String[]{userId, email, password});
 
         //checks if user exists with this credentials and id.
-        return result.size() == 1;
+        if (result.size() != 1) {
+            return false;
+        }
+        authCache.put(authString, userId);
+        return true;
     }
 
 }
@@ -0,0 +1,76 @@
+package rest_server;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import io.javalin.json.JsonMapper;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON mapper of the server, backed by one shared <code>Gson</code> instance.
+ * <br>
+ * <br>
+ * Besides the string based methods Javalin uses for
+ * <code>Context.json</code>, the mapper can write a value straight to an
+ * output stream with {@link #toJsonStream(Object, Type, OutputStream)}, so
+ * that large responses are never held as a complete string.
+ */
+public class GsonMapper implements JsonMapper {
+
+    // characters buffered before they are encoded and written to the response
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Gson gson;
+
+    public GsonMapper(Gson gson) {
+        this.gson = gson;
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    @Override
+    public @NotNull String toJsonString(@NotNull Object obj, @NotNull Type type) {
+        return gson.toJson(obj, type);
+    }
+
+    @Override
+    public <T> @NotNull T fromJsonString(@NotNull String json, @NotNull Type targetType) {
+        return gson.fromJson(json, targetType);
+    }
+
+    /**
+     * Serializes the value to the stream in UTF-8, producing the same JSON as
+     * {@link #toJsonString(Object, Type)}. The stream is flushed, not closed.
+     *
+     * @param obj  the value to serialize
+     * @param type the type of the value
+     * @param out  the stream to write to, e.g. the output stream of a response
+     * @throws IOException if writing to the stream fails
+     */
+    public void toJsonStream(Object obj, Type type, OutputStream out) throws IOException {
+        JsonWriter writer = newJsonWriter(out);
+        gson.toJson(obj, type, writer);
+        writer.flush();
+    }
+
+    /**
+     * Creates a writer with the settings of the shared <code>Gson</code>
+     * instance, e.g. to write the rows of a cursor one by one.
+     *
+     * @param out the stream to write to
+     * @return the writer; must be flushed when done
+     * @throws IOException if the writer cannot be created
+     */
+    public JsonWriter newJsonWriter(OutputStream out) throws IOException {
+        return gson.newJsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                BUFFER_SIZE));
+    }
+}
@@ -0,0 +1,149 @@
+package rest_server;
+
+import utils.ExpiringMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the responses of requests that were sent with an idempotency key,
+ * so that a client can repeat a request that changes data, e.g. after a
+ * timeout, without it being executed twice. <br>
+ * <br>
+ * A key belongs to the client that sent it: entries are keyed by a SHA-256
+ * hash of the authorization header and the idempotency key, so no password is
+ * kept in memory. Each entry also holds the method, path and query of the
+ * request, so that a key cannot be reused for another request. While the first
+ * request is executed the entry is in progress; afterwards it holds the
+ * response. Entries expire after a fixed time and the least recently used
+ * entry is dropped once the store is full.
+ */
+public class IdempotencyStore {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private final long timeToLiveMillis;
+    private final ExpiringMap<String, Entry> entries;
+
+    public IdempotencyStore() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    public IdempotencyStore(int maxEntries, long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+        this.entries = new ExpiringMap<>(maxEntries);
+    }
+
+    /**
+     * Starts a request with the key, unless the key is already known.
+     *
+     * @param authString     the authorization header; can be <code>null</code>
+     * @param idempotencyKey the idempotency key sent by the client
+     * @param request        the method, path and query of the request
+     * @return <code>null</code> if the key was not known and the request must
+     * be executed now, otherwise the entry of the request that used the key
+     * first
+     */
+    public synchronized Entry begin(String authString, String idempotencyKey, String request) {
+        String key = key(authString, idempotencyKey);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        entries.put(key, new Entry(request), timeToLiveMillis);
+        return null;
+    }
+
+    /**
+     * Stores the response of a request started with {@link #begin}, so that it
+     * is sent again when the request is repeated.
+     *
+     * @param authString     the authorization header; can be <code>null</code>
+     * @param idempotencyKey the idempotency key sent by the client
+     * @param status         the status code of the response
+     * @param contentType    the content type of the response; can be
+     *                       <code>null</code>
+     * @param body           the body of the response; can be <code>null</code>
+     */
+    public synchronized void complete(String authString, String idempotencyKey, int status, String contentType,
+                                      String body) {
+        Entry entry = entries.get(key(authString, idempotencyKey));
+        if (entry != null) {
+            entry.complete(status, contentType, body == null ? "" : body);
+        }
+    }
+
+    /**
+     * Forgets a request started with {@link #begin} whose changes were not
+     * made, so that it is executed again when it is repeated.
+     *
+     * @param authString     the authorization header; can be <code>null</code>
+     * @param idempotencyKey the idempotency key sent by the client
+     */
+    public synchronized void abandon(String authString, String idempotencyKey) {
+        entries.remove(key(authString, idempotencyKey));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String key(String authString, String idempotencyKey) {
+        return ExpiringMap.hash(authString == null ? "" : authString) + ":" + idempotencyKey;
+    }
+
+    /**
+     * A request sent with an idempotency key and, once it was executed, its
+     * response.
+     */
+    public static final class Entry {
+        private final String request;
+        private volatile boolean completed;
+        private int status;
+        private String contentType;
+        private String body;
+
+        private Entry(String request) {
+            this.request = request;
+        }
+
+        private void complete(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+            // written last, so the response is visible once it is completed
+            this.completed = true;
+        }
+
+        /**
+         * @return the method, path and query of the request
+         */
+        public String getRequest() {
+            return request;
+        }
+
+        /**
+         * @return <code>true</code> if the response is stored,
+         * <code>false</code> while the request is still executed
+         */
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
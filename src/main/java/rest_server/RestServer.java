@@ -1,16 +1,27 @@
 package rest_server;
 
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import io.javalin.Javalin;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
-import io.javalin.json.JsonMapper;
+import io.javalin.http.Handler;
+import io.javalin.http.Header;
 import model.DatabaseConnector;
-import org.jetbrains.annotations.NotNull;
+import model.RowCursor;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
 import utils.StringNames;
 import utils.Utils;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 
@@ -18,52 +29,454 @@ public class RestServer {
 
     // reach server under: http://localhost:4568/ (simply type it in your web browser)
 
+    // rows fetched per round trip when a large result is streamed to the client
+    private static final int STREAM_FETCH_SIZE = 500;
+    // returned instead of a row count if streaming failed after the response was committed
+    private static final int STREAM_ABORTED = -1;
+    // rows of a page if only the query parameter after is given, and the most rows a page may have
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final int MAX_PAGE_LIMIT = 1000;
+    // set to true to handle requests on virtual threads, e.g. -DrestServer.virtualThreads=true
+    public static final String VIRTUAL_THREADS_PROPERTY = "restServer.virtualThreads";
+    // queries that may wait for a database connection before further ones are rejected
+    private static final int MAX_WAITING_QUERIES = 500;
+    // sizes of the platform thread pool, the same as the Javalin defaults
+    private static final int MAX_THREADS = 250;
+    private static final int MIN_THREADS = 8;
+    private static final int THREAD_IDLE_TIMEOUT_MILLIS = 60_000;
+    // gzip level of responses; Javalin compresses only responses of at least 1500 bytes
+    private static final int GZIP_LEVEL = 6;
+    // longer idempotency keys are rejected, so that the store stays small; a UUID has 36 characters
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    // seconds a client should wait before it repeats a request whose first execution is still running
+    private static final int IDEMPOTENCY_RETRY_AFTER_SECONDS = 1;
+
+    private static final Logger logger = Logger.getLogger(RestServer.class.getName());
+
     private static DataValidation dataVal;
     private final Javalin javalinApp;
+    private final Gson gson = new Gson();
+    private final GsonMapper jsonMapper = new GsonMapper(gson);
+    private final IdempotencyStore idempotencyStore = new IdempotencyStore();
+    private final long catalogRefreshIntervalMillis;
+    private final boolean virtualThreads;
     private DatabaseConnector dbConnector;
+    private CatalogCache catalogCache;
+    private AvailabilityIndex availabilityIndex;
+    private SeatEvents seatEvents;
 
 
     public RestServer(DatabaseConnector dbConnector, DataValidation dataValidation) {
         this(dbConnector, dataValidation, 4568);
     }
 
-    //Initializes the server and sets up the required components.
     public RestServer(DatabaseConnector dbConnector, DataValidation dataValidation, int port) {
+        this(dbConnector, dataValidation, port, CatalogCache.DEFAULT_REFRESH_INTERVAL_MILLIS);
+    }
+
+    //Initializes the server and sets up the required components. Cached companies, flights and dates are
+    //loaded again after the given interval.
+    public RestServer(DatabaseConnector dbConnector, DataValidation dataValidation, int port,
+                      long catalogRefreshIntervalMillis) {
+        this(dbConnector, dataValidation, port, catalogRefreshIntervalMillis,
+                Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY));
+    }
+
+    //Initializes the server and handles requests on virtual threads if requested and supported by the JVM,
+    //otherwise on a pool of platform threads.
+    public RestServer(DatabaseConnector dbConnector, DataValidation dataValidation, int port,
+                      long catalogRefreshIntervalMillis, boolean virtualThreads) {
         this.dbConnector = dbConnector;
+        this.catalogRefreshIntervalMillis = catalogRefreshIntervalMillis;
+        this.catalogCache = new CatalogCache(dbConnector, gson, catalogRefreshIntervalMillis);
         dataVal = dataValidation;
+        createSeatListeners();
+
+        ThreadPool threadPool = createThreadPool(virtualThreads);
+        this.virtualThreads = threadPool instanceof VirtualThreadPool;
+        this.javalinApp = Javalin.create(config -> {
+            config.jsonMapper(jsonMapper);
+            config.compression.gzipOnly(GZIP_LEVEL);
+            config.jetty.server(() -> new Server(threadPool));
+        }).start(port);
+        defineRoutes();
+    }
 
-        Gson gson = new Gson();
-        JsonMapper gsonMapper = new JsonMapper() {
-            @Override
-            public @NotNull String toJsonString(@NotNull Object obj, @NotNull Type type) {
-                return gson.toJson(obj, type);
-            }
-
-            @Override
-            public <T> @NotNull T fromJsonString(@NotNull String json, @NotNull Type targetType) {
-                return gson.fromJson(json, targetType);
+    private static ThreadPool createThreadPool(boolean virtualThreads) {
+        if (virtualThreads) {
+            if (VirtualThreadPool.isAvailable()) {
+                return new VirtualThreadPool();
             }
-        };
-        this.javalinApp = Javalin.create(config -> config.jsonMapper(gsonMapper)).start(port);
-        defineRoutes();
+            logger.log(Level.WARNING, "Virtual threads are not supported by this JVM, using platform threads");
+        }
+        QueuedThreadPool threadPool = new QueuedThreadPool(MAX_THREADS, MIN_THREADS, THREAD_IDLE_TIMEOUT_MILLIS);
+        threadPool.setName("JettyServerThreadPool");
+        return threadPool;
     }
 
     //Starts the server with the database and validation.
     public static void main(String[] args) {
         DatabaseConnector dbConnector = new DatabaseConnector("reservation_system");
-        new RestServer(dbConnector, new DataValidation(dbConnector));
+        // the pool lets only a few queries run at once; bound the queue in front of it as well
+        dbConnector.setMaxWaitingQueries(MAX_WAITING_QUERIES);
+        SeatInventory seatInventory = new SeatInventory(dbConnector);
+        seatInventory.loadAll();
+        new RestServer(dbConnector, new DataValidation(dbConnector, seatInventory));
 
     }
 
     public void setDbConnectorAndDataValidator(DatabaseConnector dbConnector) {
         this.dbConnector = dbConnector;
+        this.catalogCache = new CatalogCache(dbConnector, gson, catalogRefreshIntervalMillis);
         dataVal = new DataValidation(dbConnector);
+        idempotencyStore.clear();
+        createSeatListeners();
+    }
+
+    public CatalogCache getCatalogCache() {
+        return catalogCache;
+    }
+
+    public AvailabilityIndex getAvailabilityIndex() {
+        return availabilityIndex;
+    }
+
+    public SeatEvents getSeatEvents() {
+        return seatEvents;
+    }
+
+    //Creates the index of bookable flights and the seat events and keeps both in sync with the seat inventory.
+    private void createSeatListeners() {
+        if (seatEvents != null) {
+            seatEvents.close();
+        }
+        availabilityIndex = new AvailabilityIndex(dbConnector, catalogRefreshIntervalMillis);
+        seatEvents = new SeatEvents(dataVal.getSeatInventory(), gson);
+        dataVal.getSeatInventory().addListener(availabilityIndex);
+        dataVal.getSeatInventory().addListener(seatEvents);
+    }
+
+    /**
+     * @return <code>true</code> if requests are handled on virtual threads
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
     }
 
     public void stopServer() {
+        seatEvents.close();
         javalinApp.stop();
     }
 
+    /**
+     * Streams all rows of the table to the response as a JSON array, row by row,
+     * without collecting them first. Nothing is written if the table is empty,
+     * so that the caller can still answer with an error.
+     *
+     * @param context the context of the request
+     * @param table   the table to select all columns from
+     * @return the number of rows written; <code>null</code> if the query failed
+     * before anything was written; {@link #STREAM_ABORTED} if it failed while
+     * writing, in which case the connection was aborted and the response must
+     * not be touched anymore
+     */
+    private Integer streamAll(Context context, String table) {
+        return dbConnector.executeStreamingSelectQuery(
+                new String[]{"*"},
+                new String[]{table},
+                null, null, null,
+                STREAM_FETCH_SIZE,
+                cursor -> writeJsonArray(context, cursor));
+    }
+
+    /**
+     * Writes the rows of the cursor as JSON objects in the same format as
+     * {@link Context#json(Object)} writes a list of maps. Once the first row
+     * was written, parts of the array may already be sent, so an error aborts
+     * the connection instead of being thrown; the client then sees a
+     * truncated response rather than a broken array with status 200.
+     */
+    private int writeJsonArray(Context context, RowCursor cursor) throws SQLException, IOException {
+        if (!cursor.next()) {
+            return 0;
+        }
+        context.contentType(ContentType.APPLICATION_JSON);
+        // like Gson's map serialization: skips null values and escapes html
+        JsonWriter writer = jsonMapper.newJsonWriter(context.outputStream());
+
+        int rows = 0;
+        try {
+            writer.beginArray();
+            do {
+                writer.beginObject();
+                for (int i = 1; i <= cursor.getColumnCount(); i++) {
+                    Object value = cursor.getObject(i);
+                    writer.name(cursor.getColumnLabel(i));
+                    if (value == null) {
+                        writer.nullValue();
+                    } else {
+                        gson.toJson(value, value.getClass(), writer);
+                    }
+                }
+                writer.endObject();
+                rows++;
+            } while (cursor.next());
+            writer.endArray();
+            writer.flush();
+        } catch (SQLException | IOException e) {
+            logger.log(Level.WARNING, "Streaming failed after " + rows + " rows, aborting the response", e);
+            abort(context, e);
+            return STREAM_ABORTED;
+        }
+        return rows;
+    }
+
+    /**
+     * Closes the connection of a response that is already committed, so that
+     * the client cannot take it for a complete one.
+     */
+    private static void abort(Context context, Throwable cause) {
+        Request request = Request.getBaseRequest(context.req());
+        if (request != null) {
+            request.getHttpChannel().abort(cause);
+        }
+    }
+
+    /**
+     * Writes the value as JSON straight to the response, like
+     * {@link Context#json(Object)} but without building the JSON string first.
+     */
+    private void streamJson(Context context, Object value) throws IOException {
+        context.contentType(ContentType.APPLICATION_JSON);
+        jsonMapper.toJsonStream(value, value.getClass(), context.outputStream());
+    }
+
+    /**
+     * Writes the rows of the snapshot as JSON array, serialized when the
+     * snapshot was loaded.
+     */
+    private static void writeJson(Context context, CatalogCache.Snapshot snapshot) {
+        context.contentType(ContentType.APPLICATION_JSON);
+        context.result(snapshot.getJson());
+    }
+
+    /**
+     * Sets the ETag of the response and compares it with the
+     * <code>If-None-Match</code> header of the request. If the client already
+     * has the current content, the response is answered with 304 and no body.
+     *
+     * @param context the context of the request
+     * @param etag    the strong ETag of the current content, including the
+     *                quotes
+     * @return <code>true</code> if the response was answered with 304 and
+     * nothing else must be written
+     */
+    private static boolean isNotModified(Context context, String etag) {
+        context.header(Header.ETAG, etag);
+        String ifNoneMatch = context.header(Header.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            // GET compares weakly, so a weak ETag of the same content matches as well
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                context.status(304);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the page requested with the query parameters <code>after</code>
+     * and <code>limit</code>. Without both, all rows are requested. Rows are
+     * paged by their id: a page holds the rows with an id greater than
+     * <code>after</code>, so that a page is found with the index of the id
+     * however deep it is.
+     *
+     * @param context the context of the request
+     * @return the requested page; {@link Page#ALL} if no page was requested;
+     * <code>null</code> if a parameter is invalid, after the request was
+     * answered with 400
+     */
+    private static Page parsePage(Context context) {
+        String after = context.queryParam(StringNames.after);
+        String limit = context.queryParam(StringNames.limit);
+        if (after == null && limit == null) {
+            return Page.ALL;
+        }
+        try {
+            int afterId = after == null ? 0 : Integer.parseInt(after);
+            int rows = limit == null ? DEFAULT_PAGE_LIMIT : Integer.parseInt(limit);
+            if (afterId >= 0 && rows > 0) {
+                return new Page(afterId, Math.min(rows, MAX_PAGE_LIMIT));
+            }
+        } catch (NumberFormatException e) {
+            // answered below
+        }
+        context.status(400);
+        context.json(new String[]{"After must be an integer of at least 0 and limit an integer greater than 0."});
+        return null;
+    }
+
+    /**
+     * Writes the rows of the page as JSON. The rows must have been read with
+     * {@link Page#keyset(String)}, which reads more rows than the page holds;
+     * if there are more, the id of the last row of the page is sent in the
+     * header {@link StringNames#nextAfter} as <code>after</code> of the next
+     * page.
+     */
+    private void writePage(Context context, List<Map<String, Object>> rows, Page page) throws IOException {
+        if (page.isAll() || rows.size() <= page.limit) {
+            streamJson(context, rows);
+            return;
+        }
+        List<Map<String, Object>> pageRows = new ArrayList<>(rows.subList(0, page.limit));
+        context.header(StringNames.nextAfter, String.valueOf(pageRows.get(page.limit - 1).get("id")));
+        streamJson(context, pageRows);
+    }
+
+    /**
+     * Looks up a row of a cached table by id.
+     *
+     * @param snapshot the snapshot of the table; may be <code>null</code>
+     * @param id       the id of the row; must be a valid id
+     * @return a list with the row or an empty list if there is no row with the
+     * id; <code>null</code> if the snapshot is <code>null</code>
+     */
+    private static List<Map<String, Object>> findById(CatalogCache.Snapshot snapshot, String id) {
+        if (snapshot == null) {
+            return null;
+        }
+        Map<String, Object> row = snapshot.get(Integer.parseInt(id));
+        return row == null ? Collections.emptyList() : Collections.singletonList(row);
+    }
+
+    /**
+     * Parses a comma separated list of seat numbers.
+     *
+     * @param seatNumbers the seat numbers, e.g. "1, 2, 3"
+     * @return the seat numbers in the given order; <code>null</code> if one of
+     * them is not a positive integer
+     */
+    private static List<Integer> parseSeatNumbers(String seatNumbers) {
+        List<Integer> seats = new ArrayList<>();
+        for (String seat : seatNumbers.split(",")) {
+            try {
+                int seatNumber = Integer.parseInt(seat.trim());
+                if (seatNumber <= 0) {
+                    return null;
+                }
+                seats.add(seatNumber);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return seats;
+    }
+
+    // Answers a booking whose seats could not be held.
+    private static void rejectHold(Context ctx, SeatInventory.SeatHold hold) {
+        switch (hold.getStatus()) {
+            case UNKNOWN_FLIGHT_DATE:
+                ctx.status(404).json(Map.of("error", "Flight date not found"));
+                break;
+            case SEAT_TAKEN:
+                ctx.status(409).json(Map.of("error", "Seat already taken"));
+                break;
+            case INVALID_SEAT_NUMBER:
+                ctx.status(400).json(Map.of("error", "Invalid seat numbers"));
+                break;
+            default:
+                ctx.status(409).json(Map.of("error", "Not enough seats available"));
+        }
+    }
+
+    /**
+     * Makes a handler that changes data safe to repeat. A request with the
+     * header {@link StringNames#idempotencyKey} is executed only once per key
+     * and client; when it is repeated, the stored response is sent again with
+     * the header {@link StringNames#idempotentReplayed}. A request without the
+     * header is executed as before. <br>
+     * <br>
+     * Responses with a server error are not stored, because the handlers then
+     * made no changes, so such a request is executed again when it is
+     * repeated. While the first request with a key is executed, a repeated one
+     * is answered with 503 and the header <code>Retry-After</code>; a key used
+     * for another request is answered with 422.
+     *
+     * @param handler the handler of the request
+     * @return the handler that honors idempotency keys
+     */
+    private Handler idempotent(Handler handler) {
+        return ctx -> {
+            String idempotencyKey = ctx.header(StringNames.idempotencyKey);
+            if (idempotencyKey == null || idempotencyKey.isEmpty()) {
+                handler.handle(ctx);
+                return;
+            }
+            if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                ctx.status(400).json(Map.of("error", "Idempotency key is too long"));
+                return;
+            }
+
+            String authString = ctx.header(StringNames.authorization);
+            String request = ctx.method() + " " + ctx.path() + "?" + ctx.queryString();
+            IdempotencyStore.Entry entry = idempotencyStore.begin(authString, idempotencyKey, request);
+            if (entry != null) {
+                replay(ctx, entry, request);
+                return;
+            }
+
+            boolean stored = false;
+            try {
+                handler.handle(ctx);
+                if (ctx.statusCode() < 500) {
+                    idempotencyStore.complete(authString, idempotencyKey, ctx.statusCode(), ctx.contentType(),
+                            ctx.result());
+                    stored = true;
+                }
+            } finally {
+                if (!stored) {
+                    idempotencyStore.abandon(authString, idempotencyKey);
+                }
+            }
+        };
+    }
+
+    // Answers a request whose idempotency key was used before.
+    private static void replay(Context ctx, IdempotencyStore.Entry entry, String request) {
+        if (!entry.getRequest().equals(request)) {
+            ctx.status(422).json(Map.of("error", "Idempotency key was used for another request"));
+        } else if (!entry.isCompleted()) {
+            ctx.header("Retry-After", String.valueOf(IDEMPOTENCY_RETRY_AFTER_SECONDS));
+            ctx.status(503).json(Map.of("error", "Request with this idempotency key is still in progress"));
+        } else {
+            ctx.status(entry.getStatus());
+            if (entry.getContentType() != null) {
+                ctx.contentType(entry.getContentType());
+            }
+            ctx.header(StringNames.idempotentReplayed, "true");
+            ctx.result(entry.getBody());
+        }
+    }
+
+    // Reads an integer column of a query result; 0 if it is missing or not a number.
+    private static int toInt(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     //Defines the API endpoints the server supports.
     public void defineRoutes() {
         javalinApp.get("test", context -> context.result("Test successfull, server is reachable!"));
@@ -73,10 +486,21 @@ public class RestServer {
             String dateId = context.queryParam(StringNames.dateId);
 
             if (dateId == null) {
-                context.json(dbConnector.executeSelectQuery(
-                        new String[]{"*"},
-                        new String[]{DatabaseConnector.DATES},
-                        null, null, null));
+                Page page = parsePage(context);
+                if (page == null) {
+                    return;
+                }
+                CatalogCache.Snapshot dates = catalogCache.get(DatabaseConnector.DATES);
+                if (dates == null) {
+                    context.status(500);
+                    context.json(new String[]{"Dates could not be loaded."});
+                } else if (isNotModified(context, dates.getETag())) {
+                    return;
+                } else if (page.isAll()) {
+                    writeJson(context, dates);
+                } else {
+                    writePage(context, dates.getRowsAfter(page.after, page.limit + 1), page);
+                }
             } else {
                 if (!dataVal.isValidId(dateId)) {
                     context.status(400);
@@ -84,18 +508,30 @@ public class RestServer {
                     return;
                 }
 
-                List<Map<String, Object>> queryResult = dbConnector.executeSelectQuery(
-                        new String[]{"date"},
-                        new String[]{DatabaseConnector.DATES},
-                        null, "id = ?",
-                        new String[]{dateId});
+                //only the date column is returned, like the query below selects it.
+                CatalogCache.Snapshot dates = catalogCache.get(DatabaseConnector.DATES);
+                List<Map<String, Object>> queryResult = findById(dates, dateId);
+                if (queryResult != null) {
+                    if (!queryResult.isEmpty() && isNotModified(context, dates.getETag())) {
+                        return;
+                    }
+                    queryResult = queryResult.stream()
+                            .map(date -> Collections.singletonMap("date", date.get("date")))
+                            .collect(Collectors.toList());
+                } else {
+                    queryResult = dbConnector.executeSelectQuery(
+                            new String[]{"date"},
+                            new String[]{DatabaseConnector.DATES},
+                            null, "id = ?",
+                            new String[]{dateId});
+                }
 
                 if (queryResult.isEmpty()) {
                     context.status(404);
                     context.json(new String[]{"Date with id " + dateId + " not found."});
                     return;
                 }
-                context.json(queryResult);
+                streamJson(context, queryResult);
             }
         });
 
@@ -104,11 +540,13 @@ public class RestServer {
             String companyId = context.queryParam(StringNames.companyId);
 
             if (companyId == null) {
-                List<Map<String, Object>> res = dbConnector.executeSelectQuery(
-                        new String[]{"*"},
-                        new String[]{DatabaseConnector.COMPANIES},
-                        null, null, null);
-                context.json(res);
+                CatalogCache.Snapshot companies = catalogCache.get(DatabaseConnector.COMPANIES);
+                if (companies == null) {
+                    context.status(500);
+                    context.json(new String[]{"Companies could not be loaded."});
+                } else if (!isNotModified(context, companies.getETag())) {
+                    writeJson(context, companies);
+                }
             } else {
                 if (!dataVal.isValidId(companyId)) {
                     context.status(400);
@@ -116,18 +554,25 @@ public class RestServer {
                     return;
                 }
 
-                List<Map<String, Object>> queryResult = dbConnector.executeSelectQuery(
-                        new String[]{"*"},
-                        new String[]{DatabaseConnector.COMPANIES},
-                        null, "id = ?",
-                        new String[]{companyId});
+                CatalogCache.Snapshot companies = catalogCache.get(DatabaseConnector.COMPANIES);
+                List<Map<String, Object>> queryResult = findById(companies, companyId);
+                if (queryResult != null && !queryResult.isEmpty() && isNotModified(context, companies.getETag())) {
+                    return;
+                }
+                if (queryResult == null) {
+                    queryResult = dbConnector.executeSelectQuery(
+                            new String[]{"*"},
+                            new String[]{DatabaseConnector.COMPANIES},
+                            null, "id = ?",
+                            new String[]{companyId});
+                }
 
                 if (queryResult.isEmpty()) {
                     context.status(404);
                     context.json(new String[]{"Company with id " + companyId + " not found."});
                     return;
                 }
-                context.json(queryResult);
+                streamJson(context, queryResult);
             }
         });
 
@@ -145,10 +590,17 @@ public class RestServer {
             }
 
             if (companyId == null && flightId == null) {
-                queryResult = dbConnector.executeSelectQuery(
-                        new String[]{"*"},
-                        new String[]{DatabaseConnector.FLIGHTS},
-                        null, null, null);
+                CatalogCache.Snapshot flights = catalogCache.get(DatabaseConnector.FLIGHTS);
+                if (flights == null) {
+                    context.status(500);
+                    context.json(new String[]{"Flights could not be loaded."});
+                } else if (flights.isEmpty()) {
+                    context.status(404);
+                    context.json(new String[]{"Given id(s) not found or no entries with this id(s)."});
+                } else if (!isNotModified(context, flights.getETag())) {
+                    writeJson(context, flights);
+                }
+                return;
             } else if (companyId != null && flightId == null) {
                 queryResult = dbConnector.executeSelectQuery(
                         new String[]{"fs.id as flightScheduleId", "f.id as flightId",
@@ -191,7 +643,7 @@ public class RestServer {
                 context.json(new String[]{"Given id(s) not found or no entries with this id(s)."});
                 return;
             }
-            context.json(queryResult);
+            streamJson(context, queryResult);
         });
 
         // FLIGHT SCHEDULES REQUESTS
@@ -207,10 +659,34 @@ public class RestServer {
             }
 
             if (flightScheduleId == null && info == null) {
-                queryResult = dbConnector.executeSelectQuery(
-                        new String[]{"*"},
-                        new String[]{DatabaseConnector.FLIGHT_SCHEDULES},
-                        null, null, null);
+                Page page = parsePage(context);
+                if (page == null) {
+                    return;
+                }
+                if (!page.isAll()) {
+                    queryResult = dbConnector.executeSelectQuery(
+                            new String[]{"*"},
+                            new String[]{DatabaseConnector.FLIGHT_SCHEDULES},
+                            null, page.keyset("id"),
+                            new String[]{page.getAfter()});
+                    if (queryResult.isEmpty() && page.isFirst()) {
+                        context.status(404);
+                        context.json(new String[]{"No schedules found."});
+                        return;
+                    }
+                    writePage(context, queryResult, page);
+                    return;
+                }
+                Integer rows = streamAll(context, DatabaseConnector.FLIGHT_SCHEDULES);
+                // after STREAM_ABORTED the response is already committed and must stay untouched
+                if (rows == null) {
+                    context.status(500);
+                    context.json(new String[]{"Schedules could not be loaded."});
+                } else if (rows == 0) {
+                    context.status(404);
+                    context.json(new String[]{"No schedules found."});
+                }
+                return;
             } else if (flightScheduleId != null && info == null) {
                 queryResult = dbConnector.executeSelectQuery(
                         new String[]{"*"},
@@ -244,7 +720,7 @@ public class RestServer {
                         " not found or no entries with this id."});
                 return;
             }
-            context.json(queryResult);
+            streamJson(context, queryResult);
         });
 
         // RESERVATIONS REQUESTS
@@ -265,19 +741,32 @@ public class RestServer {
                     return;
                 }
 
-                List<Map<String, Object>> queryResult = dbConnector.executeSelectQuery(
-                        new String[]{"*"},
-                        new String[]{DatabaseConnector.RESERVATIONS},
-                        null, "customerId = ?",
-                        new String[]{customerId});
+                Page page = parsePage(context);
+                if (page == null) {
+                    return;
+                }
+                List<Map<String, Object>> queryResult;
+                if (page.isAll()) {
+                    queryResult = dbConnector.executeSelectQuery(
+                            new String[]{"*"},
+                            new String[]{DatabaseConnector.RESERVATIONS},
+                            null, "customerId = ?",
+                            new String[]{customerId});
+                } else {
+                    queryResult = dbConnector.executeSelectQuery(
+                            new String[]{"*"},
+                            new String[]{DatabaseConnector.RESERVATIONS},
+                            null, "customerId = ? and " + page.keyset("id"),
+                            new String[]{customerId, page.getAfter()});
+                }
 
-                if (queryResult.isEmpty()) {
+                if (queryResult.isEmpty() && page.isFirst()) {
                     context.status(404);
                     context.json(new String[]{"Customer with id " + customerId +
                             " not found or has no reservations."});
                     return;
                 }
-                context.json(queryResult);
+                writePage(context, queryResult, page);
             } else {
                 context.status(400);
                 context.json(new String[]{"For retrieving all reservations of a customer, " +
@@ -285,6 +774,75 @@ public class RestServer {
             }
         });
 
+        // all reservations of a customer together with their flight and seat numbers, read with one query
+        javalinApp.get("/reservations/details", context -> {
+            String customerId = context.queryParam(StringNames.customerId);
+            String authString = context.header(StringNames.authorization);
+
+            if (customerId == null) {
+                context.status(400);
+                context.json(new String[]{"For retrieving all reservations of a customer, " +
+                        "a customer id must be given."});
+                return;
+            }
+            if (!dataVal.isValidId(customerId)) {
+                context.status(400);
+                context.json(new String[]{"Id must be an integer and greater than 0."});
+                return;
+            }
+            if (authString == null || !dataVal.isUserAuthorized(authString, customerId)) {
+                context.status(401);
+                context.json(new String[]{"User is not authorized to view this information."});
+                return;
+            }
+
+            Page page = parsePage(context);
+            if (page == null) {
+                return;
+            }
+            String condition = "r.customerId = ? and r.flightDateId = fd.id and fd.flightScheduleId = fs.id " +
+                    "and fd.dateId = d.id and c.id = fs.companyId and f.id = fs.flightId";
+            String[] conditionArgs = {customerId};
+            if (!page.isAll()) {
+                condition += " and " + page.keyset("r.id");
+                conditionArgs = new String[]{customerId, page.getAfter()};
+            }
+            List<Map<String, Object>> queryResult = dbConnector.executeSelectQuery(
+                    new String[]{"r.id", "r.reserved_seats", "r.flightDateId",
+                            "c.name as companyName", "f.name as flightName",
+                            "fs.launch_time", "d.date", "f.id as flightId", "c.id as companyId",
+                            "(SELECT GROUP_CONCAT(sn.seat_number ORDER BY sn.seat_number) FROM "
+                                    + DatabaseConnector.SEAT_NUMBERS
+                                    + " sn WHERE sn.reservationId = r.id) as seatNumbers"},
+                    new String[]{DatabaseConnector.RESERVATIONS,
+                            DatabaseConnector.FLIGHT_DATES,
+                            DatabaseConnector.FLIGHT_SCHEDULES,
+                            DatabaseConnector.COMPANIES,
+                            DatabaseConnector.FLIGHTS,
+                            DatabaseConnector.DATES},
+                    new String[]{"r", "fd", "fs", "c", "f", "d"},
+                    condition,
+                    conditionArgs);
+
+            if (queryResult.isEmpty() && page.isFirst()) {
+                context.status(404);
+                context.json(new String[]{"Customer with id " + customerId +
+                        " not found or has no reservations."});
+                return;
+            }
+
+            // the seat numbers are concatenated by the query, return them as array
+            List<Map<String, Object>> reservations = new ArrayList<>(queryResult.size());
+            for (Map<String, Object> row : queryResult) {
+                Map<String, Object> reservation = new LinkedHashMap<>(row);
+                Object seats = row.get("seatNumbers");
+                List<Integer> seatNumbers = seats == null ? null : parseSeatNumbers(String.valueOf(seats));
+                reservation.put("seatNumbers", seatNumbers == null ? Collections.emptyList() : seatNumbers);
+                reservations.add(reservation);
+            }
+            writePage(context, reservations, page);
+        });
+
         javalinApp.get("/seatNumbers", ctx -> {
             String flightDateId = ctx.queryParam(StringNames.flightDateId);
             String reservationId = ctx.queryParam(StringNames.reservationId);
@@ -305,16 +863,16 @@ public class RestServer {
                         return;
                     }
 
-                    // Get all seat numbers for this flight date (JOIN reservations + seat_numbers)
-                    List<Map<String, Object>> seats = dbConnector.executeSelectQuery(
-                            new String[]{"sn.seat_number"},
-                            new String[]{"seat_numbers sn JOIN reservations r ON sn.reservationId = r.id"},
-                            null,
-                            "r.flightDateId = ?",
-                            new String[]{flightDateId}
-                    );
+                    // the taken seats as a compact bitmap instead of a list, if requested
+                    if (StringNames.bitmap.equals(ctx.queryParam(StringNames.format))) {
+                        BitSet taken = dataVal.getSeatInventory().getTakenSeatBitmap(Integer.parseInt(flightDateId));
+                        ctx.json(Map.of(StringNames.flightDateId, Integer.parseInt(flightDateId),
+                                StringNames.bitmap, Utils.encodeSeatBitmap(taken)));
+                        return;
+                    }
 
-                    seats.forEach(seat -> seatNumbers.add((Integer) seat.get("seat_number")));
+                    // Get all taken seat numbers for this flight date from the inventory
+                    seatNumbers.addAll(dataVal.getSeatInventory().getTakenSeats(Integer.parseInt(flightDateId)));
 
                 } else if (reservationId != null) {
                     // Validate reservationId
@@ -339,15 +897,28 @@ public class RestServer {
                     return;
                 }
 
-                ctx.json(seatNumbers);
+                streamJson(ctx, seatNumbers);
 
             } catch (Exception e) {
                 ctx.status(500).json(Map.of("error", "Internal server error: " + e.getMessage()));
             }
         });
 
+        // live changes of the taken seats of a flight date as server-sent events, see SeatEvents
+        javalinApp.sse("/seatNumbers/events", client -> {
+            String flightDateId = client.ctx().queryParam(StringNames.flightDateId);
+            if (flightDateId == null || !dataVal.isValidId(flightDateId)
+                    || !dataVal.getSeatInventory().contains(Integer.parseInt(flightDateId))) {
+                client.sendEvent("error", "Flight date not found");
+                client.close();
+                return;
+            }
+            client.keepAlive();
+            seatEvents.subscribe(Integer.parseInt(flightDateId), client);
+        });
+
         // CREATE RESERVATION
-        javalinApp.post("/reservation/create", ctx -> {
+        javalinApp.post("/reservation/create", idempotent(ctx -> {
             String customerId = ctx.queryParam(StringNames.customerId);
             String flightDateId = ctx.queryParam(StringNames.flightDateId);
             String seats = ctx.queryParam(StringNames.reservedSeats);
@@ -372,62 +943,82 @@ public class RestServer {
                 return;
             }
 
-            // Create reservation
-            if (!dbConnector.executeInsertQuery(
-                    DatabaseConnector.RESERVATIONS,
-                    new String[]{"customerId", "flightDateId", "reserved_seats"},
-                    new String[]{customerId, flightDateId, seats}
-            )) {
-                ctx.status(500).json(Map.of("error", "Reservation creation failed"));
+            List<Integer> seatList = parseSeatNumbers(seatNumbers);
+            SeatInventory seatInventory = dataVal.getSeatInventory();
+            int flightDate = Integer.parseInt(flightDateId);
+            if (seatList == null
+                    || !seatInventory.matchesReservedSeats(flightDate, Integer.parseInt(seats), seatList)) {
+                ctx.status(400).json(Map.of("error", "Invalid seat numbers"));
                 return;
             }
 
-            // Add tokens based on number of seats
-            dbConnector.executeUpdateQuery(
-                    DatabaseConnector.CUSTOMERS,
-                    new String[]{"tokens = tokens + ?"},
-                    new String[]{seats},
-                    "id = ?",
-                    new String[]{customerId}
-            );
-
-            // Get new reservation ID
-            List<Map<String, Object>> newRes = dbConnector.executeSelectQuery(
-                    new String[]{"id"},
-                    new String[]{DatabaseConnector.RESERVATIONS},
-                    null,
-                    "customerId = ? AND flightDateId = ? ORDER BY id DESC LIMIT 1",
-                    new String[]{customerId, flightDateId}
-            );
-
-            if (newRes.isEmpty()) {
-                ctx.status(500).json(Map.of("error", "Failed to retrieve new reservation"));
+            // Take the seats in the inventory, so that concurrent bookings cannot get them
+            SeatInventory.SeatHold hold = seatInventory.hold(flightDate, Integer.parseInt(seats), seatList);
+            if (!hold.isHeld()) {
+                rejectHold(ctx, hold);
                 return;
             }
-            int reservationId = (int) newRes.get(0).get("id");
 
-            // Insert seat numbers
-            Arrays.stream(seatNumbers.split(","))
-                    .forEach(seat -> dbConnector.executeInsertQuery(
+            // Create reservation, seats and tokens in one transaction
+            Integer reservationId = null;
+            try {
+                reservationId = dbConnector.inTransaction(tx -> {
+                    int id = tx.insert(
+                            DatabaseConnector.RESERVATIONS,
+                            new String[]{"customerId", "flightDateId", "reserved_seats"},
+                            new String[]{customerId, flightDateId, seats}
+                    );
+                    if (id < 0) {
+                        return null;
+                    }
+
+                    // Add tokens based on number of seats
+                    tx.update(
+                            DatabaseConnector.CUSTOMERS,
+                            new String[]{"tokens = tokens + ?"},
+                            new String[]{seats},
+                            "id = ?",
+                            new String[]{customerId}
+                    );
+
+                    // Insert seat numbers in one statement
+                    tx.batchInsert(
                             DatabaseConnector.SEAT_NUMBERS,
                             new String[]{"reservationId", "seat_number"},
-                            new String[]{String.valueOf(reservationId), seat.trim()}
-                    ));
-
-            // Update available seats
-            dbConnector.executeUpdateQuery(
-                    DatabaseConnector.FLIGHT_DATES,
-                    new String[]{"available_seats = available_seats - ?"},
-                    new String[]{seats},
-                    "id = ?",
-                    new String[]{flightDateId}
-            );
+                            seatList.stream()
+                                    .map(seat -> new String[]{String.valueOf(id), String.valueOf(seat)})
+                                    .collect(Collectors.toList())
+                    );
+
+                    // Update available seats
+                    tx.update(
+                            DatabaseConnector.FLIGHT_DATES,
+                            new String[]{"available_seats = available_seats - ?"},
+                            new String[]{seats},
+                            "id = ?",
+                            new String[]{flightDateId}
+                    );
+                    return id;
+                });
+            } finally {
+                // give the seats back if the reservation was not stored
+                if (reservationId == null) {
+                    hold.cancel();
+                } else {
+                    hold.commit();
+                }
+            }
+
+            if (reservationId == null) {
+                ctx.status(500).json(Map.of("error", "Reservation creation failed"));
+                return;
+            }
 
             ctx.status(201).json(Map.of("message", "Reservation created", "reservationId", reservationId));
-        });
+        }));
 
         // DELETE RESERVATION
-        javalinApp.delete("/reservation/delete", ctx -> {
+        javalinApp.delete("/reservation/delete", idempotent(ctx -> {
             String reservationId = ctx.queryParam(StringNames.reservationId);
             String authString = ctx.header(StringNames.authorization);
 
@@ -461,20 +1052,6 @@ public class RestServer {
             }
 
 
-            // Delete seat numbers
-            dbConnector.executeDeleteQuery(
-                    DatabaseConnector.SEAT_NUMBERS,
-                    "reservationId = ?",
-                    new String[]{reservationId}
-            );
-
-            // Delete reservation
-            dbConnector.executeDeleteQuery(
-                    DatabaseConnector.RESERVATIONS,
-                    "id = ?",
-                    new String[]{reservationId}
-            );
-
             // Restore seats
             if(reservation.get(0).get(StringNames.reservedSeats) == null) {
                 ctx.status(405).json(Map.of("error", "No reserved seats are found"));
@@ -483,19 +1060,55 @@ public class RestServer {
 
             String seats = String.valueOf(reservation.get(0).get(StringNames.reservedSeats));
             String flightDateId = String.valueOf(reservation.get(0).get(StringNames.flightDateId));
-            dbConnector.executeUpdateQuery(
-                    DatabaseConnector.FLIGHT_DATES,
-                    new String[]{"available_seats = available_seats + ?"},
-                    new String[]{seats},
-                    "id = ?",
-                    new String[]{flightDateId}
-            );
+            // load the flight date before the change, so that it is written through
+            SeatInventory seatInventory = dataVal.getSeatInventory();
+            int flightDate = toInt(reservation.get(0).get(StringNames.flightDateId));
+            seatInventory.ensureLoaded(flightDate);
+
+            List<Integer> freedSeats = new ArrayList<>();
+            Boolean deleted = dbConnector.inTransaction(tx -> {
+                tx.select(
+                        new String[]{"seat_number"},
+                        new String[]{DatabaseConnector.SEAT_NUMBERS},
+                        null,
+                        "reservationId = ?",
+                        new String[]{reservationId}
+                ).forEach(seat -> freedSeats.add(toInt(seat.get("seat_number"))));
+
+                // Delete seat numbers
+                tx.delete(
+                        DatabaseConnector.SEAT_NUMBERS,
+                        "reservationId = ?",
+                        new String[]{reservationId}
+                );
+
+                // Delete reservation; if a concurrent request already did,
+                // the seats must not be restored twice
+                if (tx.delete(DatabaseConnector.RESERVATIONS, "id = ?", new String[]{reservationId}) == 0) {
+                    return null;
+                }
+
+                tx.update(
+                        DatabaseConnector.FLIGHT_DATES,
+                        new String[]{"available_seats = available_seats + ?"},
+                        new String[]{seats},
+                        "id = ?",
+                        new String[]{flightDateId}
+                );
+                return true;
+            });
+
+            if (deleted == null) {
+                ctx.status(500).json(Map.of("error", "Reservation deletion failed"));
+                return;
+            }
+            seatInventory.release(flightDate, toInt(seats), freedSeats);
 
             ctx.status(201).json(Map.of("message", "Reservation deleted"));
-        });
+        }));
 
         // MODIFY RESERVATION
-        javalinApp.put("/reservation/modify", ctx -> {
+        javalinApp.put("/reservation/modify", idempotent(ctx -> {
             String reservationId = ctx.queryParam(StringNames.reservationId);
             String newSeats = ctx.queryParam(StringNames.reservedSeats);
             String newSeatNumbers = ctx.queryParam(StringNames.seatNumbers);
@@ -507,6 +1120,11 @@ public class RestServer {
                 return;
             }
 
+            if (!dataVal.isValidId(reservationId) || !dataVal.isValidId(newSeats)) {
+                ctx.status(400).json(Map.of("error", "Invalid ID format"));
+                return;
+            }
+
             // Get existing reservation
             List<Map<String, Object>> reservation = dbConnector.executeSelectQuery(
                     new String[]{"*"},
@@ -537,13 +1155,21 @@ public class RestServer {
                     new String[]{reservationId}
             );
 
-            Set<String> oldSeatSet = oldSeats.stream()
-                    .map(seat -> String.valueOf(seat.get(StringNames.seatNumbers)))
+            Set<Integer> oldSeatSet = oldSeats.stream()
+                    .map(seat -> toInt(seat.get("seat_number")))
                     .collect(Collectors.toSet());
 
-            Set<String> newSeatSet = Arrays.stream(newSeatNumbers.split(","))
-                    .map(String::trim)
-                    .collect(Collectors.toSet());
+            SeatInventory seatInventory = dataVal.getSeatInventory();
+            int flightDate = toInt(reservation.get(0).get(StringNames.flightDateId));
+            int newCount = Integer.parseInt(newSeats);
+            List<Integer> newSeatList = parseSeatNumbers(newSeatNumbers);
+            if (newSeatList == null
+                    || !seatInventory.matchesReservedSeats(flightDate, newCount, newSeatList)) {
+                ctx.status(400).json(Map.of("error", "Invalid seat numbers"));
+                return;
+            }
+            // keep the order of the request for the inserted rows
+            Set<Integer> newSeatSet = new LinkedHashSet<>(newSeatList);
 
             // Check for no changes
             if (oldSeatSet.equals(newSeatSet)) {
@@ -551,30 +1177,78 @@ public class RestServer {
                 return;
             }
 
-            // Update seat numbers
-            dbConnector.executeDeleteQuery(
-                    DatabaseConnector.SEAT_NUMBERS,
-                    "reservationId = ?",
-                    new String[]{reservationId}
-            );
+            Object oldSeatCount = reservation.get(0).get(StringNames.reservedSeats);
+            String flightDateId = String.valueOf(reservation.get(0).get(StringNames.flightDateId));
 
-            newSeatSet.forEach(seat -> dbConnector.executeInsertQuery(
-                    DatabaseConnector.SEAT_NUMBERS,
-                    new String[]{"reservationId", "seat_number"},
-                    new String[]{reservationId, seat}
-            ));
-
-            // Update reservation
-            dbConnector.executeUpdateQuery(
-                    DatabaseConnector.RESERVATIONS,
-                    new String[]{"reserved_seats = ?"},
-                    new String[]{newSeats},
-                    "id = ?",
-                    new String[]{reservationId}
-            );
+            // Hold the additional seats in the inventory
+            int oldCount = oldSeatCount == null ? 0 : toInt(oldSeatCount);
+            Set<Integer> addedSeats = new LinkedHashSet<>(newSeatSet);
+            addedSeats.removeAll(oldSeatSet);
+            Set<Integer> removedSeats = new HashSet<>(oldSeatSet);
+            removedSeats.removeAll(newSeatSet);
+            SeatInventory.SeatHold hold = seatInventory.hold(flightDate, Math.max(0, newCount - oldCount),
+                    addedSeats);
+            if (!hold.isHeld()) {
+                rejectHold(ctx, hold);
+                return;
+            }
+
+            Boolean updated = null;
+            try {
+                updated = dbConnector.inTransaction(tx -> {
+                    // Update seat numbers
+                    tx.delete(
+                            DatabaseConnector.SEAT_NUMBERS,
+                            "reservationId = ?",
+                            new String[]{reservationId}
+                    );
+
+                    tx.batchInsert(
+                            DatabaseConnector.SEAT_NUMBERS,
+                            new String[]{"reservationId", "seat_number"},
+                            newSeatSet.stream()
+                                    .map(seat -> new String[]{reservationId, String.valueOf(seat)})
+                                    .collect(Collectors.toList())
+                    );
+
+                    // Update reservation
+                    tx.update(
+                            DatabaseConnector.RESERVATIONS,
+                            new String[]{"reserved_seats = ?"},
+                            new String[]{newSeats},
+                            "id = ?",
+                            new String[]{reservationId}
+                    );
+
+                    // Give back or take the difference in seats
+                    if (oldSeatCount != null) {
+                        int difference = oldCount - newCount;
+                        tx.update(
+                                DatabaseConnector.FLIGHT_DATES,
+                                new String[]{"available_seats = available_seats + ?"},
+                                new String[]{String.valueOf(difference)},
+                                "id = ?",
+                                new String[]{flightDateId}
+                        );
+                    }
+                    return true;
+                });
+            } finally {
+                if (updated == null) {
+                    hold.cancel();
+                } else {
+                    hold.commit();
+                }
+            }
+
+            if (updated == null) {
+                ctx.status(500).json(Map.of("error", "Reservation update failed"));
+                return;
+            }
+            seatInventory.release(flightDate, Math.max(0, oldCount - newCount), removedSeats);
 
             ctx.status(200).json(Map.of("message", "Reservation updated"));
-        });
+        }));
 
         // Get schedules by date
         javalinApp.get("/schedules/by-date", context -> {
@@ -593,32 +1267,36 @@ public class RestServer {
                 return;
             }
 
-            List<Map<String, Object>> queryResult = dbConnector.executeSelectQuery(
-                    new String[]{
-                            "f.name as flightName",
-                            "f.flight_duration",
-                            "f.view_type",
-                            "c.name as companyName",
-                            "fs.launch_time",
-                            "fd.available_seats",
-                            "fd.id as flightDateId",
-                            "c.id as companyId",
-                            "f.id as flightId"
-                    },
-                    new String[]{
-                            DatabaseConnector.FLIGHTS,
-                            DatabaseConnector.COMPANIES,
-                            DatabaseConnector.FLIGHT_SCHEDULES,
-                            DatabaseConnector.FLIGHT_DATES,
-                            DatabaseConnector.DATES
-                    },
-                    new String[]{"f", "c", "fs", "fd", "d"},
-                    "d.id = ? AND fd.dateId = d.id AND fd.flightScheduleId = fs.id " +
-                            "AND fs.flightId = f.id AND fs.companyId = c.id " +
-                            "AND fd.available_seats > 0 " +
-                            "AND (d.date > CURDATE() OR (d.date = CURDATE() AND fs.launch_time > CURTIME()))",
-                    new String[]{dateId}
-            );
+            //answered from the index; queries the database only if it could not be built.
+            List<Map<String, Object>> queryResult = availabilityIndex.getSchedules(Integer.parseInt(dateId));
+            if (queryResult == null) {
+                queryResult = dbConnector.executeSelectQuery(
+                        new String[]{
+                                "f.name as flightName",
+                                "f.flight_duration",
+                                "f.view_type",
+                                "c.name as companyName",
+                                "fs.launch_time",
+                                "fd.available_seats",
+                                "fd.id as flightDateId",
+                                "c.id as companyId",
+                                "f.id as flightId"
+                        },
+                        new String[]{
+                                DatabaseConnector.FLIGHTS,
+                                DatabaseConnector.COMPANIES,
+                                DatabaseConnector.FLIGHT_SCHEDULES,
+                                DatabaseConnector.FLIGHT_DATES,
+                                DatabaseConnector.DATES
+                        },
+                        new String[]{"f", "c", "fs", "fd", "d"},
+                        "d.id = ? AND fd.dateId = d.id AND fd.flightScheduleId = fs.id " +
+                                "AND fs.flightId = f.id AND fs.companyId = c.id " +
+                                "AND fd.available_seats > 0 " +
+                                "AND (d.date > CURDATE() OR (d.date = CURDATE() AND fs.launch_time > CURTIME()))",
+                        new String[]{dateId}
+                );
+            }
 
             if (queryResult.isEmpty()) {
                 context.status(404);
@@ -626,24 +1304,91 @@ public class RestServer {
                 return;
             }
 
-            context.json(queryResult);
+            streamJson(context, queryResult);
+        });
+
+        // Get schedules by calendar date, e.g. 2025-03-22, without looking up the date ID first
+        javalinApp.get("/schedules/by-calendar-date", context -> {
+            String date = context.queryParam(StringNames.date);
+
+            if (date == null) {
+                context.status(400);
+                context.json(new String[]{"Date is required"});
+                return;
+            }
+
+            if (!dataVal.isValidDate(date)) {
+                context.status(400);
+                context.json(new String[]{"Invalid date format. Must be yyyy-MM-dd"});
+                return;
+            }
+
+            //answered from the index by date; queries the database only if it could not be built.
+            List<Map<String, Object>> queryResult = availabilityIndex.getSchedules(LocalDate.parse(date));
+            if (queryResult == null) {
+                queryResult = dbConnector.executeSelectQuery(
+                        new String[]{
+                                "f.name as flightName",
+                                "f.flight_duration",
+                                "f.view_type",
+                                "c.name as companyName",
+                                "fs.launch_time",
+                                "fd.available_seats",
+                                "fd.id as flightDateId",
+                                "c.id as companyId",
+                                "f.id as flightId"
+                        },
+                        new String[]{
+                                DatabaseConnector.FLIGHTS,
+                                DatabaseConnector.COMPANIES,
+                                DatabaseConnector.FLIGHT_SCHEDULES,
+                                DatabaseConnector.FLIGHT_DATES,
+                                DatabaseConnector.DATES
+                        },
+                        new String[]{"f", "c", "fs", "fd", "d"},
+                        "d.date = ? AND fd.dateId = d.id AND fd.flightScheduleId = fs.id " +
+                                "AND fs.flightId = f.id AND fs.companyId = c.id " +
+                                "AND fd.available_seats > 0 " +
+                                "AND (d.date > CURDATE() OR (d.date = CURDATE() AND fs.launch_time > CURTIME()))",
+                        new String[]{date}
+                );
+            }
+
+            if (queryResult.isEmpty()) {
+                context.status(404);
+                context.json(new String[]{"No available flights found for the specified date"});
+                return;
+            }
+
+            streamJson(context, queryResult);
         });
 
         // Get all dates that have flights
         javalinApp.get("/dates-with-flights", context -> {
-            List<Map<String, Object>> queryResult = dbConnector.executeSelectQuery(
-                    new String[]{"DISTINCT d.id as dateId, d.date"},  // Add return dateId
-                    new String[]{
-                            DatabaseConnector.DATES,
-                            DatabaseConnector.FLIGHT_DATES,
-                            DatabaseConnector.FLIGHT_SCHEDULES
-                    },
-                    new String[]{"d", "fd", "fs"},
-                    "fd.dateId = d.id AND fd.flightScheduleId = fs.id " +
-                            "AND fd.available_seats > 0 " +
-                            "AND (d.date > CURDATE() OR (d.date = CURDATE() AND fs.launch_time > CURTIME()))",
-                    null
-            );
+            List<Map<String, Object>> queryResult = availabilityIndex.getDatesWithFlights();
+            if (queryResult != null && !queryResult.isEmpty()) {
+                // dates drop out as flights launch or are booked out, so the content is part of the ETag
+                String etag = "\"dates-with-flights-" + availabilityIndex.getVersion() + "-"
+                        + Integer.toHexString(queryResult.hashCode()) + "\"";
+                if (isNotModified(context, etag)) {
+                    return;
+                }
+            }
+            if (queryResult == null) {
+                queryResult = dbConnector.executeSelectQuery(
+                        new String[]{"DISTINCT d.id as dateId, d.date"},  // Add return dateId
+                        new String[]{
+                                DatabaseConnector.DATES,
+                                DatabaseConnector.FLIGHT_DATES,
+                                DatabaseConnector.FLIGHT_SCHEDULES
+                        },
+                        new String[]{"d", "fd", "fs"},
+                        "fd.dateId = d.id AND fd.flightScheduleId = fs.id " +
+                                "AND fd.available_seats > 0 " +
+                                "AND (d.date > CURDATE() OR (d.date = CURDATE() AND fs.launch_time > CURTIME()))",
+                        null
+                );
+            }
 
             if (queryResult.isEmpty()) {
                 context.status(404);
@@ -651,7 +1396,7 @@ public class RestServer {
                 return;
             }
 
-            context.json(queryResult);
+            streamJson(context, queryResult);
         });
 
         /*
@@ -846,4 +1591,53 @@ public class RestServer {
         });
     }
 
+    /**
+     * A page of a listing: at most <code>limit</code> rows with an id greater
+     * than <code>after</code>, ordered by id.
+     */
+    private static final class Page {
+        private static final Page ALL = new Page(0, 0);
+        // the limits the SQL text is built for; a page reads the rows of the next larger one, so that every
+        // listing has a few statement texts to prepare and memoize instead of one per limit
+        private static final int[] LIMIT_STEPS = {10, 25, 50, 100, 250, 500, MAX_PAGE_LIMIT};
+
+        private final int after;
+        private final int limit;
+
+        private Page(int after, int limit) {
+            this.after = after;
+            this.limit = limit;
+        }
+
+        // no page was requested, all rows are returned
+        private boolean isAll() {
+            return limit == 0;
+        }
+
+        private boolean isFirst() {
+            return after == 0;
+        }
+
+        private String getAfter() {
+            return String.valueOf(after);
+        }
+
+        /**
+         * Returns the condition that selects the page by the given id column,
+         * with one parameter for <code>after</code>. The limit is rounded up
+         * to the next of {@link #LIMIT_STEPS} and one row more is read, to know
+         * whether there is a next page; the rows beyond the page are dropped
+         * by {@link RestServer#writePage}.
+         */
+        private String keyset(String idColumn) {
+            int rows = MAX_PAGE_LIMIT;
+            for (int step : LIMIT_STEPS) {
+                if (step >= limit) {
+                    rows = step;
+                    break;
+                }
+            }
+            return idColumn + " > ? ORDER BY " + idColumn + " LIMIT " + (rows + 1);
+        }
+    }
 }
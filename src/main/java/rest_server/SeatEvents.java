@@ -0,0 +1,157 @@
+package rest_server;
+
+import com.google.gson.Gson;
+import io.javalin.http.sse.SseClient;
+import utils.StringNames;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pushes the seat changes of flight dates to subscribed clients as
+ * server-sent events. <br>
+ * <br>
+ * A new subscriber first gets the event {@link StringNames#seatsEvent} with
+ * all taken seats of the flight date, then {@link StringNames#seatTakenEvent}
+ * and {@link StringNames#seatReleasedEvent} with the seat numbers that changed.
+ * The data of every event is <code>{"flightDateId":1,"seats":[3,4]}</code>.
+ * Events are sent by one thread in the order the seat inventory made the
+ * changes, so a client that applies them one after the other always knows the
+ * taken seats. A comment is sent to idle connections regularly, which keeps
+ * them open and finds the ones that were closed.
+ */
+public class SeatEvents implements SeatInventory.SeatListener {
+
+    private static final long KEEP_ALIVE_SECONDS = 15;
+
+    private static final Logger logger = Logger.getLogger(SeatEvents.class.getName());
+
+    private final SeatInventory seatInventory;
+    private final Gson gson;
+    private final Map<Integer, List<SseClient>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "SeatEvents");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SeatEvents(SeatInventory seatInventory, Gson gson) {
+        this.seatInventory = seatInventory;
+        this.gson = gson;
+        sender.scheduleWithFixedDelay(this::keepAlive, KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sends the taken seats of the flight date to the client and from then on
+     * every change of them, until the client disconnects.
+     *
+     * @param flightDateId the id of the flight date; must exist
+     * @param client       the client; must be kept alive
+     */
+    public void subscribe(int flightDateId, SseClient client) {
+        subscribers.compute(flightDateId, (id, clients) -> {
+            List<SseClient> subscribed = clients == null ? new CopyOnWriteArrayList<>() : clients;
+            subscribed.add(client);
+            return subscribed;
+        });
+        client.onClose(() -> unsubscribe(flightDateId, client));
+        // read when sent, so that changes queued before are already contained
+        execute(() -> send(flightDateId, client, StringNames.seatsEvent, seatInventory.getTakenSeats(flightDateId)));
+    }
+
+    /**
+     * @param flightDateId the id of the flight date
+     * @return the number of clients subscribed to the flight date
+     */
+    public int getSubscriberCount(int flightDateId) {
+        List<SseClient> clients = subscribers.get(flightDateId);
+        return clients == null ? 0 : clients.size();
+    }
+
+    @Override
+    public void availableSeatsChanged(int flightDateId, int availableSeats) {
+        // clients are only told about seat numbers
+    }
+
+    @Override
+    public void seatNumbersChanged(int flightDateId, Collection<Integer> taken, Collection<Integer> released) {
+        if (!subscribers.containsKey(flightDateId)) {
+            return;
+        }
+        // called while the flight date is locked, so the events are only queued here
+        List<Integer> takenSeats = new ArrayList<>(taken);
+        List<Integer> releasedSeats = new ArrayList<>(released);
+        execute(() -> {
+            for (SseClient client : subscribers.getOrDefault(flightDateId, Collections.emptyList())) {
+                if (!takenSeats.isEmpty()) {
+                    send(flightDateId, client, StringNames.seatTakenEvent, takenSeats);
+                }
+                if (!releasedSeats.isEmpty()) {
+                    send(flightDateId, client, StringNames.seatReleasedEvent, releasedSeats);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops sending events and closes the connections of all subscribers.
+     */
+    public void close() {
+        sender.shutdownNow();
+        subscribers.values().forEach(clients -> clients.forEach(SseClient::close));
+        subscribers.clear();
+    }
+
+    private void unsubscribe(int flightDateId, SseClient client) {
+        subscribers.computeIfPresent(flightDateId, (id, clients) -> {
+            clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    private void execute(Runnable task) {
+        try {
+            sender.execute(task);
+        } catch (RejectedExecutionException e) {
+            // closed, nobody is subscribed anymore
+        }
+    }
+
+    private void send(int flightDateId, SseClient client, String event, List<Integer> seatNumbers) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("flightDateId", flightDateId);
+        data.put("seats", seatNumbers);
+        try {
+            client.sendEvent(event, gson.toJson(data));
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Seat event could not be sent, closing the connection", e);
+            unsubscribe(flightDateId, client);
+            client.close();
+        }
+    }
+
+    private void keepAlive() {
+        subscribers.forEach((flightDateId, clients) -> {
+            for (SseClient client : clients) {
+                try {
+                    client.sendComment("keep-alive");
+                } catch (RuntimeException e) {
+                    unsubscribe(flightDateId, client);
+                    client.close();
+                }
+            }
+        });
+    }
+}
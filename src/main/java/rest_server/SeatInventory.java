@@ -0,0 +1,476 @@
+package rest_server;
+
+import model.DatabaseConnector;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory inventory of the seats of every flight date. <br>
+ * <br>
+ * For each flight date the inventory holds the number of available seats and a
+ * bit set of the seat numbers that are taken, so seat checks do not need a
+ * database query. Flight dates are loaded all at once with {@link #loadAll()}
+ * or one by one on first access. <br>
+ * <br>
+ * Seats are booked in three steps: {@link #hold} checks and takes the seats in
+ * memory, the caller writes the reservation to the database and then either
+ * commits or cancels the hold. Concurrent bookings of the same flight date
+ * therefore cannot take the same seat or more seats than available. Each
+ * flight date is guarded by one of a fixed set of striped locks, so bookings
+ * of different flight dates rarely wait for each other. Seats given back by a
+ * committed deletion are written through with {@link #release}. Registered
+ * {@link SeatListener}s are told about every change of the available seats
+ * and seat numbers.
+ */
+public class SeatInventory {
+
+    // rows fetched per round trip while loading all flight dates
+    private static final int LOAD_FETCH_SIZE = 1000;
+    // number of locks the flight dates are spread over; a power of two
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Logger logger = Logger.getLogger(SeatInventory.class.getName());
+
+    private final DatabaseConnector dbConnector;
+    private final Map<Integer, FlightSeats> flights = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final List<SeatListener> listeners = new CopyOnWriteArrayList<>();
+
+    public SeatInventory(DatabaseConnector dbConnector) {
+        this.dbConnector = dbConnector;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Loads the available seats and the taken seat numbers of all flight dates,
+     * streaming both queries. Flight dates that are already loaded are kept,
+     * since they may hold seats that are not stored yet.
+     *
+     * @return <code>true</code> if both queries succeeded; <code>false</code>
+     * otherwise
+     */
+    public boolean loadAll() {
+        Map<Integer, FlightSeats> loaded = new ConcurrentHashMap<>();
+        Integer flightDates = dbConnector.executeStreamingSelectQuery(
+                new String[]{"id", "available_seats"},
+                new String[]{DatabaseConnector.FLIGHT_DATES},
+                null, null, null,
+                LOAD_FETCH_SIZE,
+                cursor -> {
+                    int count = 0;
+                    while (cursor.next()) {
+                        int id = ((Number) cursor.getObject(1)).intValue();
+                        loaded.put(id, new FlightSeats(((Number) cursor.getObject(2)).intValue()));
+                        count++;
+                    }
+                    return count;
+                });
+        Integer seats = dbConnector.executeStreamingSelectQuery(
+                new String[]{"r.flightDateId", "sn.seat_number"},
+                new String[]{"seat_numbers sn JOIN reservations r ON sn.reservationId = r.id"},
+                null, null, null,
+                LOAD_FETCH_SIZE,
+                cursor -> {
+                    int count = 0;
+                    while (cursor.next()) {
+                        FlightSeats flight = loaded.get(((Number) cursor.getObject(1)).intValue());
+                        if (flight != null) {
+                            flight.taken.set(((Number) cursor.getObject(2)).intValue());
+                        }
+                        count++;
+                    }
+                    return count;
+                });
+        if (flightDates == null || seats == null) {
+            logger.log(Level.WARNING, "Seat inventory could not be loaded, flight dates are loaded on demand");
+            return false;
+        }
+        loaded.values().forEach(FlightSeats::initCapacity);
+        loaded.forEach(flights::putIfAbsent);
+        return true;
+    }
+
+    /**
+     * Registers a listener that is called whenever the available seats of a
+     * loaded flight date change.
+     *
+     * @param listener the listener; is called while the flight date is locked,
+     *                 so it must not block
+     */
+    public void addListener(SeatListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Checks whether the flight date exists.
+     *
+     * @param flightDateId the id of the flight date
+     * @return <code>true</code> if the flight date exists
+     */
+    public boolean contains(int flightDateId) {
+        return get(flightDateId) != null;
+    }
+
+    /**
+     * Loads the flight date from the database unless it is loaded already.
+     * Must be called before a change of its seats is written to the database
+     * that is not booked through {@link #hold}, since {@link #release} only
+     * updates loaded flight dates.
+     *
+     * @param flightDateId the id of the flight date
+     * @return <code>true</code> if the flight date is loaded;
+     * <code>false</code> if it does not exist or could not be read
+     */
+    public boolean ensureLoaded(int flightDateId) {
+        return get(flightDateId) != null;
+    }
+
+    /**
+     * @param flightDateId the id of the flight date
+     * @return the number of available seats; -1 if the flight date does not
+     * exist
+     */
+    public int getAvailableSeats(int flightDateId) {
+        FlightSeats flight = get(flightDateId);
+        return flight == null ? -1 : flight.available.get();
+    }
+
+    /**
+     * @param flightDateId the id of the flight date
+     * @return the highest seat number that can be booked; -1 if the flight
+     * date does not exist
+     */
+    public int getCapacity(int flightDateId) {
+        FlightSeats flight = get(flightDateId);
+        return flight == null ? -1 : flight.capacity;
+    }
+
+    /**
+     * Checks the seat numbers of a reservation before they are booked.
+     *
+     * @param flightDateId the id of the flight date
+     * @param seats        the number of reserved seats
+     * @param seatNumbers  the seat numbers of the reservation
+     * @return <code>true</code> if there is one distinct seat number per
+     * reserved seat and none is above the capacity of the flight date; the
+     * capacity is not checked if the flight date does not exist, which
+     * {@link #hold} reports
+     */
+    public boolean matchesReservedSeats(int flightDateId, int seats, Collection<Integer> seatNumbers) {
+        if (seatNumbers.size() != seats || new HashSet<>(seatNumbers).size() != seats) {
+            return false;
+        }
+        FlightSeats flight = get(flightDateId);
+        return flight == null || seatNumbers.stream().allMatch(seatNumber -> seatNumber <= flight.capacity);
+    }
+
+    /**
+     * @param flightDateId the id of the flight date
+     * @param seats        the number of seats to reserve
+     * @return <code>true</code> if the flight date exists and has at least the
+     * given number of seats available
+     */
+    public boolean hasAvailableSeats(int flightDateId, int seats) {
+        FlightSeats flight = get(flightDateId);
+        return flight != null && seats <= flight.available.get();
+    }
+
+    /**
+     * Checks that the seats can be booked and takes them, so that no other
+     * booking can get them. The hold must be committed once the reservation is
+     * stored or cancelled if storing it failed.
+     *
+     * @param flightDateId the id of the flight date
+     * @param seats        the number of seats to take from the available seats
+     * @param seatNumbers  the seat numbers to take; each must be free, at most
+     *                     the capacity of the flight date and may only be given
+     *                     once
+     * @return the hold; check {@link SeatHold#isHeld()} before using the seats
+     */
+    public SeatHold hold(int flightDateId, int seats, Collection<Integer> seatNumbers) {
+        ReentrantLock lock = lockFor(flightDateId);
+        lock.lock();
+        try {
+            FlightSeats flight = get(flightDateId);
+            if (flight == null) {
+                return new SeatHold(SeatHold.Status.UNKNOWN_FLIGHT_DATE);
+            }
+            if (seats > flight.available.get()) {
+                return new SeatHold(SeatHold.Status.NOT_ENOUGH_SEATS);
+            }
+            for (int seatNumber : seatNumbers) {
+                // checked before any bit is set, so a huge seat number cannot grow the bit set
+                if (seatNumber < 1 || seatNumber > flight.capacity) {
+                    return new SeatHold(SeatHold.Status.INVALID_SEAT_NUMBER);
+                }
+            }
+            List<Integer> taken = new ArrayList<>(seatNumbers.size());
+            for (int seatNumber : seatNumbers) {
+                if (flight.taken.get(seatNumber)) {
+                    // also catches a seat number that was given twice
+                    taken.forEach(flight.taken::clear);
+                    return new SeatHold(SeatHold.Status.SEAT_TAKEN);
+                }
+                flight.taken.set(seatNumber);
+                taken.add(seatNumber);
+            }
+            notifyListeners(flightDateId, flight.available.addAndGet(-seats), taken, Collections.emptyList());
+            return new SeatHold(this, flightDateId, seats, taken);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param flightDateId the id of the flight date
+     * @return the taken seat numbers in ascending order; empty if the flight
+     * date does not exist
+     */
+    public List<Integer> getTakenSeats(int flightDateId) {
+        List<Integer> seatNumbers = new ArrayList<>();
+        ReentrantLock lock = lockFor(flightDateId);
+        lock.lock();
+        try {
+            FlightSeats flight = get(flightDateId);
+            if (flight != null) {
+                for (int i = flight.taken.nextSetBit(0); i >= 0; i = flight.taken.nextSetBit(i + 1)) {
+                    seatNumbers.add(i);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return seatNumbers;
+    }
+
+    /**
+     * @param flightDateId the id of the flight date
+     * @return a copy of the taken seats, where bit n is set if seat n is
+     * taken; empty if the flight date does not exist
+     */
+    public BitSet getTakenSeatBitmap(int flightDateId) {
+        ReentrantLock lock = lockFor(flightDateId);
+        lock.lock();
+        try {
+            FlightSeats flight = get(flightDateId);
+            return flight == null ? new BitSet() : (BitSet) flight.taken.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back seats after the deletion or change of a reservation was
+     * committed to the database. Does nothing if the flight date is not loaded,
+     * since it is then read from the database on first access.
+     *
+     * @param flightDateId the id of the flight date
+     * @param seats        the number of seats to add to the available seats
+     * @param seatNumbers  the seat numbers that are free again
+     */
+    public void release(int flightDateId, int seats, Collection<Integer> seatNumbers) {
+        ReentrantLock lock = lockFor(flightDateId);
+        lock.lock();
+        try {
+            FlightSeats flight = flights.get(flightDateId);
+            if (flight != null) {
+                seatNumbers.forEach(flight.taken::clear);
+                notifyListeners(flightDateId, flight.available.addAndGet(seats), Collections.emptyList(),
+                        seatNumbers);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void notifyListeners(int flightDateId, int availableSeats, Collection<Integer> taken,
+                                 Collection<Integer> released) {
+        for (SeatListener listener : listeners) {
+            listener.availableSeatsChanged(flightDateId, availableSeats);
+            if (!taken.isEmpty() || !released.isEmpty()) {
+                listener.seatNumbersChanged(flightDateId, taken, released);
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(int flightDateId) {
+        // spread consecutive ids over all stripes
+        int hash = flightDateId * 0x9E3779B9;
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private FlightSeats get(int flightDateId) {
+        if (flightDateId <= 0) {
+            return null;
+        }
+        FlightSeats flight = flights.get(flightDateId);
+        if (flight != null) {
+            return flight;
+        }
+        // load under the lock of the flight date, so that a hold cannot run
+        // between reading the database and publishing the entry
+        ReentrantLock lock = lockFor(flightDateId);
+        lock.lock();
+        try {
+            flight = flights.get(flightDateId);
+            if (flight == null) {
+                flight = load(flightDateId);
+                // a missing flight date is not stored, so it is found once it is added
+                if (flight != null) {
+                    flights.put(flightDateId, flight);
+                }
+            }
+            return flight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FlightSeats load(int flightDateId) {
+        String[] args = new String[]{String.valueOf(flightDateId)};
+        List<Map<String, Object>> flightDate = dbConnector.executeSelectQuery(new String[]{"*"},
+                new String[]{DatabaseConnector.FLIGHT_DATES}, null, "id = ?", args);
+        if (flightDate == null || flightDate.isEmpty() || flightDate.get(0).get("available_seats") == null) {
+            return null;
+        }
+        List<Map<String, Object>> seats = dbConnector.executeSelectQuery(
+                new String[]{"sn.seat_number"},
+                new String[]{"seat_numbers sn JOIN reservations r ON sn.reservationId = r.id"},
+                null,
+                "r.flightDateId = ?",
+                args);
+        if (seats == null) {
+            return null;
+        }
+
+        FlightSeats flight = new FlightSeats(((Number) flightDate.get(0).get("available_seats")).intValue());
+        for (Map<String, Object> seat : seats) {
+            flight.taken.set(((Number) seat.get("seat_number")).intValue());
+        }
+        flight.initCapacity();
+        return flight;
+    }
+
+    /**
+     * Gets told about changes of the available seats, e.g. to keep a view of
+     * the flights up to date.
+     */
+    public interface SeatListener {
+
+        /**
+         * @param flightDateId   the id of the flight date
+         * @param availableSeats the number of seats that are available now
+         */
+        void availableSeatsChanged(int flightDateId, int availableSeats);
+
+        /**
+         * Called after {@link #availableSeatsChanged} if seat numbers were taken
+         * or released. Does nothing by default.
+         *
+         * @param flightDateId the id of the flight date
+         * @param taken        the seat numbers that were taken; may be empty
+         * @param released     the seat numbers that are free again; may be
+         *                     empty
+         */
+        default void seatNumbersChanged(int flightDateId, Collection<Integer> taken, Collection<Integer> released) {
+        }
+    }
+
+    /**
+     * Seats of one flight date. The bit set is guarded by the lock of the
+     * flight date, the available count can be read without locking. The
+     * capacity is set once the taken seats are loaded and does not change.
+     */
+    private static final class FlightSeats {
+        private final BitSet taken = new BitSet();
+        private final AtomicInteger available;
+        private volatile int capacity;
+
+        private FlightSeats(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        // the flight dates do not store a seat count, so it is the seats that
+        // were available or taken when loading; at least the highest taken seat
+        private void initCapacity() {
+            capacity = Math.max(available.get() + taken.cardinality(), taken.length() - 1);
+        }
+    }
+
+    /**
+     * Seats taken by {@link #hold}. The hold is either committed or cancelled;
+     * whatever comes first wins and later calls do nothing.
+     */
+    public static final class SeatHold {
+
+        /**
+         * Outcome of {@link #hold}.
+         */
+        public enum Status {
+            HELD, UNKNOWN_FLIGHT_DATE, NOT_ENOUGH_SEATS, SEAT_TAKEN, INVALID_SEAT_NUMBER
+        }
+
+        private final Status status;
+        private final SeatInventory inventory;
+        private final int flightDateId;
+        private final int seats;
+        private final List<Integer> seatNumbers;
+        private boolean done;
+
+        private SeatHold(Status status) {
+            this.status = status;
+            this.inventory = null;
+            this.flightDateId = 0;
+            this.seats = 0;
+            this.seatNumbers = Collections.emptyList();
+            this.done = true;
+        }
+
+        private SeatHold(SeatInventory inventory, int flightDateId, int seats, List<Integer> seatNumbers) {
+            this.status = Status.HELD;
+            this.inventory = inventory;
+            this.flightDateId = flightDateId;
+            this.seats = seats;
+            this.seatNumbers = seatNumbers;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isHeld() {
+            return status == Status.HELD;
+        }
+
+        /**
+         * Keeps the seats, after the reservation was stored.
+         */
+        public synchronized void commit() {
+            done = true;
+        }
+
+        /**
+         * Gives the seats back, after storing the reservation failed.
+         */
+        public synchronized void cancel() {
+            if (!done) {
+                done = true;
+                inventory.release(flightDateId, seats, seatNumbers);
+            }
+        }
+    }
+}
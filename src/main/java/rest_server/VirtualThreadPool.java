@@ -0,0 +1,109 @@
+package rest_server;
+
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jetty thread pool that runs every task on a new virtual thread. <br>
+ * <br>
+ * A request handler that blocks on JDBC then parks its virtual thread instead
+ * of occupying one of a few hundred platform threads, so the number of
+ * requests that can wait at the same time is no longer bounded by the pool.
+ * Virtual threads need Java 21; since the project is compiled for an older
+ * release, the executor is looked up by reflection and {@link #isAvailable()}
+ * tells whether the running JVM supports them. <br>
+ * <br>
+ * The pool is started and stopped with the Jetty server it belongs to. On
+ * stop, running tasks get the stop timeout to finish before they are
+ * interrupted.
+ */
+public class VirtualThreadPool extends ContainerLifeCycle implements ThreadPool {
+
+    private final Method factory;
+    private volatile ExecutorService executor;
+
+    /**
+     * @throws IllegalStateException if the JVM does not support virtual
+     *                               threads
+     */
+    public VirtualThreadPool() {
+        factory = findExecutorFactory();
+        if (factory == null) {
+            throw new IllegalStateException("Virtual threads require Java 21 or newer");
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the running JVM supports virtual threads
+     */
+    public static boolean isAvailable() {
+        return findExecutorFactory() != null;
+    }
+
+    private static Method findExecutorFactory() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        try {
+            executor = (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual thread executor could not be created", e);
+        }
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        ExecutorService stopping = executor;
+        stopping.shutdown();
+        if (!stopping.awaitTermination(getStopTimeout(), TimeUnit.MILLISECONDS)) {
+            stopping.shutdownNow();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        ExecutorService current = executor;
+        if (current == null) {
+            throw new RejectedExecutionException("Thread pool is not started");
+        }
+        // rejects the task itself once the pool is stopped
+        current.execute(task);
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        ExecutorService current = executor;
+        if (current != null) {
+            current.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+    }
+
+    // a virtual thread is created per task, so there is always one more
+    @Override
+    public int getThreads() {
+        return 1;
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 1;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Map whose entries expire a given time after they were put and whose least
+ * recently used entry is dropped once it holds the maximum number of entries.
+ * Backs the caches of the client and the server. <br>
+ * <br>
+ * The map is not thread-safe; the caches using it synchronize access to it.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class ExpiringMap<K, V> {
+
+    private final int maxEntries;
+    private final LongSupplier clock;
+    // access ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public ExpiringMap(int maxEntries) {
+        this(maxEntries, System::nanoTime);
+    }
+
+    /**
+     * @param maxEntries the maximum number of entries; nothing is kept if it
+     *                   is 0
+     * @param clock      the current time in nanoseconds, like
+     *                   {@link System#nanoTime()}
+     */
+    public ExpiringMap(int maxEntries, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, ExpiringMap.Entry<V>> eldest) {
+                return size() > ExpiringMap.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the value of the key and marks it as most recently used. An
+     * expired entry is removed.
+     *
+     * @param key the key
+     * @return the value; <code>null</code> if there is none or it expired
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.expiry >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @param key              the key
+     * @param value            the value; cannot be <code>null</code>
+     * @param timeToLiveMillis how long the entry is kept
+     */
+    public void put(K key, V value, long timeToLiveMillis) {
+        if (maxEntries > 0) {
+            entries.put(key, new Entry<>(value, clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis)));
+        }
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * @param keys matches the keys of the entries to remove
+     */
+    public void removeIf(Predicate<? super K> keys) {
+        entries.keySet().removeIf(keys);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of entries, including expired ones that were not
+     * accessed since they expired
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Hashes a secret, e.g. an authorization header, so that it can be part of
+     * a key without being kept in memory.
+     *
+     * @param secret the secret
+     * @return the Base64 encoded SHA-256 hash of the secret
+     */
+    public static String hash(String secret) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A value together with the time it expires.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiry;
+
+        private Entry(V value, long expiry) {
+            this.value = value;
+            this.expiry = expiry;
+        }
+    }
+}
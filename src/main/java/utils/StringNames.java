@@ -15,6 +15,16 @@ public class StringNames {
     public static final String dateId = "dateId";
     public static final String tokens = "tokens";
     public static final String seatNumbers = "seatNumbers";
+    public static final String format = "format";
+    public static final String bitmap = "bitmap";
+    public static final String after = "after";
+    public static final String limit = "limit";
+    public static final String nextAfter = "X-Next-After";
+    public static final String idempotencyKey = "Idempotency-Key";
+    public static final String idempotentReplayed = "Idempotent-Replayed";
+    public static final String seatsEvent = "seats";
+    public static final String seatTakenEvent = "seat-taken";
+    public static final String seatReleasedEvent = "seat-released";
     public static String companyId = "companyId";           //  cinemaId
     public static String flightId = "flightId";            //  movieId
     public static String date = "date";
@@ -4,7 +4,13 @@ import com.google.gson.JsonObject;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -20,6 +26,27 @@ public class Utils {
     public static SimpleDateFormat monthDayYearDateFormat = new SimpleDateFormat("MMM dd, yyyy");
     public static SimpleDateFormat monthDayYearDateTimeFormat = new SimpleDateFormat("MMM dd, yyyy HH:mm");
 
+    // the same formats as immutable formatters, which can be shared by all threads
+    public static final DateTimeFormatter TIME_12_FORMATTER = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive().appendPattern("hh:mm:ss a").toFormatter(Locale.US);
+    public static final DateTimeFormatter TIME_24_FORMATTER = DateTimeFormatter.ofPattern("HH:mm");
+    public static final DateTimeFormatter DAY_MONTH_FORMATTER = DateTimeFormatter.ofPattern("dd.MM");
+    public static final DateTimeFormatter DAY_MONTH_YEAR_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    public static final DateTimeFormatter MONTH_DAY_YEAR_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    public static final DateTimeFormatter MONTH_DAY_YEAR_TIME_FORMATTER =
+            DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+
+    // formats in which the server sends dates: ISO, and java.sql.Date as written by Gson in the server's locale
+    private static final List<DateTimeFormatter> SERVER_DATE_FORMATTERS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("MMM d, yyyy"),
+            DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.US),
+            DateTimeFormatter.ofPattern("M月 d, yyyy", Locale.CHINESE),
+            DateTimeFormatter.ofPattern("yyyy年M月d日", Locale.CHINESE));
+    // parsed server dates by their string; cleared once full, since a client only sees a few hundred dates
+    private static final int MAX_CACHED_DATES = 4096;
+    private static final Map<String, LocalDate> serverDates = new ConcurrentHashMap<>();
+
     /**
      * Gets the unique values with the same key from a list of JSON objects.
      *
@@ -103,48 +130,77 @@ public class Utils {
         String converted = null;
         if (time != null) {
             try {
-                converted = date24TimeFormat.format(date12TimeFormat.parse(time));
-            } catch (ParseException e) {
+                converted = LocalTime.parse(time, TIME_12_FORMATTER).format(TIME_24_FORMATTER);
+            } catch (DateTimeParseException e) {
                 logger.log(Level.FINE, "%s parse failed, thus returning null.", time);
             }
         }
         return converted;
     }
 
-
-    public static boolean datesMatch(String serverDate, String targetDate) {
-        // Create multiple DateFormats to handle different date formats.
-        List<SimpleDateFormat> dateFormats = new ArrayList<>();
-
-        // Add possible date formats
-        dateFormats.add(new SimpleDateFormat("yyyy-MM-dd"));
-        dateFormats.add(new SimpleDateFormat("M月 dd, yyyy", Locale.CHINESE));
-        dateFormats.add(new SimpleDateFormat("yyyy年M月d日", Locale.CHINESE));
-
-        // Parse the target date (which should be in standard format).
-        Date targetDateTime = null;
-        try {
-            targetDateTime = new SimpleDateFormat("yyyy-MM-dd").parse(targetDate);
-        } catch (ParseException e) {
-            System.out.println("Target date parsing error: " + e.getMessage());
-            return false;
+    /**
+     * Converts a date sent by the server into a <code>LocalDate</code>. The
+     * date can be in ISO format (<b>yyyy-MM-dd</b>) or in the format of the
+     * server's JSON, e.g. <b>Mar 22, 2025</b>. Each string is parsed only once;
+     * afterwards the same <code>LocalDate</code> is returned for it.
+     *
+     * @param serverDate the string containing a date
+     * @return the date; <code>null</code> if the string is <code>null</code> or
+     * in none of the formats
+     */
+    public static LocalDate parseServerDate(String serverDate) {
+        if (serverDate == null) {
+            return null;
         }
+        LocalDate date = serverDates.get(serverDate);
+        if (date == null) {
+            date = parseWithAnyFormat(serverDate);
+            if (date != null) {
+                if (serverDates.size() >= MAX_CACHED_DATES) {
+                    serverDates.clear();
+                }
+                serverDates.put(serverDate, date);
+            }
+        }
+        return date;
+    }
 
-        // Try parsing the server date with different formats
-        for (SimpleDateFormat format : dateFormats) {
+    private static LocalDate parseWithAnyFormat(String serverDate) {
+        for (DateTimeFormatter formatter : SERVER_DATE_FORMATTERS) {
             try {
-                Date serverDateTime = format.parse(serverDate);
-                // Compare two date objects
-                if (serverDateTime.equals(targetDateTime)) {
-                    return true;
-                }
-            } catch (ParseException e) {
-                // Continue trying the next format.
-                continue;
+                return LocalDate.parse(serverDate, formatter);
+            } catch (DateTimeParseException e) {
+                // continue with the next format
             }
         }
+        return null;
+    }
 
-        return false;
+    /**
+     * Checks if a date sent by the server is the given date.
+     *
+     * @param serverDate the string containing a date, in one of the formats of
+     *                   {@link #parseServerDate(String)}
+     * @param date       the date to compare with
+     * @return <code>true</code> if both are the same day; <code>false</code>
+     * otherwise or if the server date cannot be parsed
+     */
+    public static boolean datesMatch(String serverDate, LocalDate date) {
+        return date != null && date.equals(parseServerDate(serverDate));
+    }
+
+    /**
+     * Checks if a date sent by the server is the given date.
+     *
+     * @param serverDate the string containing a date, in one of the formats of
+     *                   {@link #parseServerDate(String)}
+     * @param targetDate the string containing the date to compare with,
+     *                   usually in format <b>yyyy-MM-dd</b>
+     * @return <code>true</code> if both are the same day; <code>false</code>
+     * otherwise or if a date cannot be parsed
+     */
+    public static boolean datesMatch(String serverDate, String targetDate) {
+        return datesMatch(serverDate, parseServerDate(targetDate));
     }
 
     /**
@@ -200,6 +256,39 @@ public class Utils {
         return date.before(new Date());
     }
 
+    /**
+     * Encodes seat numbers as a bitmap for a response: bit n stands for seat
+     * n, the bits are packed little-endian like
+     * <code>BitSet.toByteArray()</code> and the bytes are encoded in Base64.
+     * A hundred seats take 20 characters instead of up to 292 for a JSON
+     * array.
+     *
+     * @param seats the seat numbers
+     * @return the bitmap
+     */
+    public static String encodeSeatBitmap(BitSet seats) {
+        return Base64.getEncoder().encodeToString(seats.toByteArray());
+    }
+
+    /**
+     * Decodes a bitmap written by {@link #encodeSeatBitmap(BitSet)}.
+     *
+     * @param bitmap the bitmap
+     * @return the seat numbers; <code>null</code> if the string is
+     * <code>null</code> or no valid Base64
+     */
+    public static BitSet decodeSeatBitmap(String bitmap) {
+        if (bitmap == null) {
+            return null;
+        }
+        try {
+            return BitSet.valueOf(Base64.getDecoder().decode(bitmap));
+        } catch (IllegalArgumentException e) {
+            logger.log(Level.FINE, "%s decode failed, thus returning null.", bitmap);
+            return null;
+        }
+    }
+
     /**
      * Checks if the string is a valid email address, that is it has the correct
      * format.
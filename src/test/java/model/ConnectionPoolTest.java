@@ -0,0 +1,130 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectionPoolTest {
+
+    // connections opened by the pool, in the order they were opened
+    private final List<Connection> opened = new ArrayList<>();
+
+    //Opens mocked connections that are valid and in auto commit mode.
+    private Connection openConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(connection.getAutoCommit()).thenReturn(true);
+        opened.add(connection);
+        return connection;
+    }
+
+    private ConnectionPool createPool(int minSize, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis)
+            throws SQLException {
+        return new ConnectionPool(this::openConnection, minSize, maxSize, borrowTimeoutMillis, idleTimeoutMillis,
+                ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    @Test
+    public void testReleasedConnectionIsReused() throws SQLException {
+        ConnectionPool pool = createPool(1, 2, 1000, 60_000);
+        assertEquals(1, opened.size());
+
+        Connection connection = pool.borrow();
+        assertSame(opened.get(0), connection);
+        pool.release(connection);
+        assertSame(connection, pool.borrow());
+        assertEquals(1, opened.size());
+        assertEquals(1, pool.getOpenConnections());
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenPoolIsExhausted() throws SQLException {
+        ConnectionPool pool = createPool(0, 1, 50, 60_000);
+        Connection connection = pool.borrow();
+
+        assertThrows(SQLTimeoutException.class, pool::borrow);
+
+        //the failed borrow keeps no permit
+        pool.release(connection);
+        assertSame(connection, pool.borrow());
+    }
+
+    @Test
+    public void testInvalidConnectionIsDiscardedOnBorrow() throws SQLException {
+        ConnectionPool pool = createPool(1, 1, 1000, 60_000);
+        Connection broken = opened.get(0);
+        when(broken.isValid(anyInt())).thenReturn(false);
+
+        Connection connection = pool.borrow();
+        assertNotSame(broken, connection);
+        verify(broken).close();
+        assertEquals(2, opened.size());
+        assertEquals(1, pool.getOpenConnections());
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws SQLException {
+        ConnectionPool pool = createPool(1, 3, 1000, 0);
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+        pool.release(first);
+        pool.release(second);
+        assertEquals(2, pool.getIdleConnections());
+
+        //expired connections are closed down to the minimum size, the oldest one first
+        pool.borrow();
+        verify(first).close();
+        verify(second, never()).close();
+        assertEquals(1, pool.getOpenConnections());
+    }
+
+    @Test
+    public void testConnectionInTransactionIsNotReused() throws SQLException {
+        ConnectionPool pool = createPool(0, 1, 1000, 60_000);
+        Connection connection = pool.borrow();
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        pool.release(connection);
+        verify(connection).close();
+        assertEquals(0, pool.getIdleConnections());
+        assertEquals(0, pool.getOpenConnections());
+        assertNotSame(connection, pool.borrow());
+    }
+
+    @Test
+    public void testBorrowIsShedWhenTooManyAreWaiting() throws Exception {
+        ConnectionPool pool = createPool(0, 1, 5_000, 60_000);
+        pool.setMaxWaiting(0);
+        Connection connection = pool.borrow();
+
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, pool::borrow);
+        //rejected right away instead of after the borrow timeout
+        assertTrue(System.nanoTime() - start < 1_000_000_000L);
+
+        pool.release(connection);
+        assertSame(connection, pool.borrow());
+    }
+
+    @Test
+    public void testCloseClosesIdleConnections() throws SQLException {
+        ConnectionPool pool = createPool(2, 2, 1000, 60_000);
+        pool.close();
+
+        verify(opened.get(0)).close();
+        verify(opened.get(1)).close();
+        assertThrows(SQLException.class, pool::borrow);
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs queries through a real {@link ConnectionPool} whose connections come
+ * from a {@link StubConnectionFactory}, so that the limit of concurrent
+ * queries is tested the way the server uses it.
+ */
+public class DatabaseConnectorTest {
+
+    private static DatabaseConnector createConnector(StubConnectionFactory factory, int maxPoolSize)
+            throws SQLException {
+        return new DatabaseConnector(new ConnectionPool(factory, 0, maxPoolSize, 5_000, 60_000,
+                ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE));
+    }
+
+    private static List<Map<String, Object>> selectFlightDate(DatabaseConnector dbConnector) {
+        return dbConnector.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHT_DATES},
+                null, "id = ?", new String[]{"1"});
+    }
+
+    @Test
+    public void testConcurrentQueriesAreLimitedByThePool() throws Exception {
+        StubConnectionFactory factory = new StubConnectionFactory(new String[]{"id"}, new Object[]{1}, 20);
+        DatabaseConnector dbConnector = createConnector(factory, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Map<String, Object>>>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(executor.submit(() -> selectFlightDate(dbConnector)));
+            }
+            for (Future<List<Map<String, Object>>> result : results) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS).get(0).get("id"));
+            }
+            assertTrue(factory.getMaxRunningQueries() <= 2);
+            assertTrue(factory.getOpenedConnections() <= 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testQueryIsShedWhenTooManyWait() throws Exception {
+        StubConnectionFactory factory = new StubConnectionFactory(new String[]{"id"}, new Object[]{1}, 500);
+        DatabaseConnector dbConnector = createConnector(factory, 1);
+        dbConnector.setMaxWaitingQueries(0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Map<String, Object>>> running = executor.submit(() -> selectFlightDate(dbConnector));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (factory.getRunningQueries() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+
+            //fails right away instead of waiting for the only connection
+            long start = System.nanoTime();
+            assertNull(selectFlightDate(dbConnector));
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(250));
+
+            assertEquals(1, running.get(5, TimeUnit.SECONDS).get(0).get("id"));
+            assertEquals(1, selectFlightDate(dbConnector).size());
+            assertEquals(1, factory.getOpenedConnections());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares mapping a query result to one <code>HashMap</code> per row, like
+ * {@link DatabaseConnector#map(java.sql.ResultSet)} did before, with mapping it
+ * to {@link Row}s that share one header. <br>
+ * <br>
+ * Run with the main method; the GC profiler reports the bytes allocated per
+ * operation (<code>gc.alloc.rate.norm</code>), which is where the two
+ * approaches differ most.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    @Param({"10", "1000"})
+    public int rows;
+
+    @Param({"3", "8"})
+    public int columns;
+
+    private ResultSet result;
+    // current row of the fake result; reset before every operation
+    private int cursor;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RowMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        Object[] values = new Object[columns];
+        String[] labels = new String[columns];
+        for (int i = 0; i < columns; i++) {
+            labels[i] = "column_" + i;
+            switch (i % 3) {
+                case 0:
+                    values[i] = i;
+                    break;
+                case 1:
+                    values[i] = "value " + i;
+                    break;
+                default:
+                    values[i] = Date.valueOf("2025-01-01");
+            }
+        }
+
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return columns;
+                        case "getColumnLabel":
+                            return labels[(int) args[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        result = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getMetaData":
+                            return meta;
+                        case "next":
+                            return cursor++ < rows;
+                        case "getObject":
+                            return values[(int) args[0] - 1];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> hashMapPerRow() throws SQLException {
+        cursor = 0;
+        List<Map<String, Object>> results = new ArrayList<>();
+        ResultSetMetaData meta = result.getMetaData();
+        int numColumns = meta.getColumnCount();
+        while (result.next()) {
+            Map<String, Object> row = new HashMap<>();
+            for (int i = 1; i <= numColumns; ++i) {
+                row.put(meta.getColumnLabel(i), result.getObject(i));
+            }
+            results.add(row);
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> sharedHeaderRows() throws SQLException {
+        cursor = 0;
+        List<Map<String, Object>> results = new ArrayList<>();
+        DatabaseConnector.readRows(result, results);
+        return results;
+    }
+}
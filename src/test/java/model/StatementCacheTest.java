@@ -0,0 +1,92 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatementCacheTest {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString(), anyInt()))
+                .thenAnswer(invocation -> mock(PreparedStatement.class));
+    }
+
+    @Test
+    public void testStatementIsReused() throws SQLException {
+        StatementCache cache = new StatementCache(2, hits, misses);
+        PreparedStatement stmt = cache.prepare(connection, "SELECT * FROM Flight");
+
+        assertSame(stmt, cache.prepare(connection, "SELECT * FROM Flight"));
+        verify(stmt).clearParameters();
+        verify(connection, times(1)).prepareStatement("SELECT * FROM Flight", Statement.NO_GENERATED_KEYS);
+        assertEquals(1, hits.get());
+        assertEquals(1, misses.get());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvictedAndClosed() throws SQLException {
+        StatementCache cache = new StatementCache(2, hits, misses);
+        PreparedStatement first = cache.prepare(connection, "SELECT 1");
+        PreparedStatement second = cache.prepare(connection, "SELECT 2");
+        //makes the first statement the most recently used one
+        cache.prepare(connection, "SELECT 1");
+        cache.prepare(connection, "SELECT 3");
+
+        verify(second).close();
+        verify(first, never()).close();
+        assertSame(first, cache.prepare(connection, "SELECT 1"));
+        assertNotSame(second, cache.prepare(connection, "SELECT 2"));
+        assertEquals(2, hits.get());
+        assertEquals(4, misses.get());
+    }
+
+    @Test
+    public void testClosedStatementIsPreparedAgain() throws SQLException {
+        StatementCache cache = new StatementCache(2, hits, misses);
+        PreparedStatement stmt = cache.prepare(connection, "SELECT 1");
+        when(stmt.isClosed()).thenReturn(true);
+
+        assertNotSame(stmt, cache.prepare(connection, "SELECT 1"));
+        assertEquals(0, hits.get());
+        assertEquals(2, misses.get());
+    }
+
+    @Test
+    public void testGeneratedKeysFlagIsPassedOn() throws SQLException {
+        StatementCache cache = new StatementCache(2, hits, misses);
+        cache.prepare(connection, "INSERT INTO Flight VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+        verify(connection).prepareStatement("INSERT INTO Flight VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+    }
+
+    @Test
+    public void testClearClosesAllStatements() throws SQLException {
+        StatementCache cache = new StatementCache(2, hits, misses);
+        PreparedStatement first = cache.prepare(connection, "SELECT 1");
+        PreparedStatement second = cache.prepare(connection, "SELECT 2");
+
+        cache.clear();
+        verify(first).close();
+        verify(second).close();
+        assertNotSame(first, cache.prepare(connection, "SELECT 1"));
+    }
+}
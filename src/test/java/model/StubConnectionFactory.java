@@ -0,0 +1,147 @@
+package model;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opens connections of a stub driver for a {@link ConnectionPool}, so that the
+ * pool and the {@link DatabaseConnector} on top of it run unchanged without a
+ * database. <br>
+ * <br>
+ * Every query blocks for a fixed time and returns the same single row. The
+ * connections are plain proxies instead of mocks, so that thousands of
+ * concurrent queries do not contend on recorded invocations.
+ */
+public class StubConnectionFactory implements ConnectionPool.ConnectionFactory {
+
+    private final String[] labels;
+    private final Object[] values;
+    private final long queryMillis;
+    private final AtomicInteger runningQueries = new AtomicInteger();
+    private final AtomicInteger maxRunningQueries = new AtomicInteger();
+    private final AtomicInteger openedConnections = new AtomicInteger();
+
+    /**
+     * @param labels      the column labels of the row every query returns
+     * @param values      the values of the row
+     * @param queryMillis how long every query blocks
+     */
+    public StubConnectionFactory(String[] labels, Object[] values, long queryMillis) {
+        this.labels = labels;
+        this.values = values;
+        this.queryMillis = queryMillis;
+    }
+
+    /**
+     * @return the number of queries that are executing right now
+     */
+    public int getRunningQueries() {
+        return runningQueries.get();
+    }
+
+    /**
+     * @return the highest number of queries that were executing at the same
+     * time
+     */
+    public int getMaxRunningQueries() {
+        return maxRunningQueries.get();
+    }
+
+    /**
+     * @return the number of connections opened so far
+     */
+    public int getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    @Override
+    public Connection open() {
+        openedConnections.incrementAndGet();
+        boolean[] closed = new boolean[1];
+        return proxy(Connection.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement();
+                case "isValid":
+                case "getAutoCommit":
+                    return true;
+                case "isClosed":
+                    return closed[0];
+                case "close":
+                    closed[0] = true;
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private PreparedStatement statement() {
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            if (method.getName().equals("executeQuery")) {
+                maxRunningQueries.accumulateAndGet(runningQueries.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(queryMillis);
+                } finally {
+                    runningQueries.decrementAndGet();
+                }
+                return result();
+            }
+            return defaultValue(method.getReturnType());
+        });
+    }
+
+    private ResultSet result() {
+        ResultSetMetaData meta = proxy(ResultSetMetaData.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return labels.length;
+                case "getColumnLabel":
+                case "getColumnName":
+                    return labels[(Integer) args[0] - 1];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+        int[] row = new int[1];
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return ++row[0] == 1;
+                case "getMetaData":
+                    return meta;
+                case "getObject":
+                    return values[(Integer) args[0] - 1];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "Stub" + type.getSimpleName();
+                default:
+                    return handler.invoke(proxy, method, args);
+            }
+        });
+    }
+
+    // false, zero or null, like the default value of a field of the type
+    private static Object defaultValue(Class<?> type) {
+        return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+}
@@ -0,0 +1,92 @@
+package rest_client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+    @Test
+    public void testFailedResponseIsNotKept() {
+        ResponseCache<String> cache = new ResponseCache<>();
+        assertNull(cache.get("/dates", 1000, () -> null));
+        assertEquals(0, cache.size());
+        assertEquals("dates", cache.get("/dates", 1000, () -> "dates"));
+    }
+
+    @Test
+    public void testInvalidate() {
+        ResponseCache<String> cache = new ResponseCache<>();
+        cache.get("/companies", 1000, () -> "companies");
+        cache.get("/flights?companyId=1", 1000, () -> "flights");
+
+        cache.invalidate(key -> key.startsWith("/flights"));
+        assertEquals(1, cache.size());
+        assertEquals("companies", cache.get("/companies", 1000, () -> "loaded again"));
+        assertEquals("loaded again", cache.get("/flights?companyId=1", 1000, () -> "loaded again"));
+    }
+
+    @Test
+    public void testResponseLoadedBeforeInvalidationIsNotKept() {
+        ResponseCache<String> cache = new ResponseCache<>();
+        assertEquals("old", cache.get("/schedules", 1000, () -> {
+            cache.invalidate(key -> true);
+            return "old";
+        }));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsDropped() {
+        ResponseCache<String> cache = new ResponseCache<>(2);
+        cache.get("1", 1000, () -> "1");
+        cache.get("2", 1000, () -> "2");
+        //makes key 1 the most recently used entry
+        cache.get("1", 1000, () -> "loaded again");
+        cache.get("3", 1000, () -> "3");
+
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("1", 1000, () -> "loaded again"));
+        assertEquals("loaded again", cache.get("2", 1000, () -> "loaded again"));
+    }
+
+    @Test
+    public void testConcurrentRequestsAreLoadedOnce() throws Exception {
+        ResponseCache<String> cache = new ResponseCache<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("/companies", 1000, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "companies";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> cache.get("/companies", 1000, () -> {
+                loads.incrementAndGet();
+                return "loaded again";
+            }));
+            release.countDown();
+
+            assertEquals("companies", first.get(5, TimeUnit.SECONDS));
+            assertEquals("companies", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
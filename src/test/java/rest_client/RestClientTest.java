@@ -5,13 +5,17 @@ import kong.unirest.*;
 import model.User;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import utils.StringNames;
+import utils.Utils;
 import javafx.application.Platform;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Arrays;
 
@@ -44,6 +48,12 @@ public class RestClientTest {
     public static void deregisterMock() { mockedUnirest.close();}
     // ---------------------------------- END ----------------------------------
 
+    // the client is shared by all tests, so responses kept by one test must not answer the next one
+    @AfterEach
+    public void clearCaches() {
+        client.clearCatalogCache();
+    }
+
     /**
      * As you know from the lecture, unit testing aims at only testing one component
      * at a time. The methods of the RestClient class are highly dependent on the
@@ -131,6 +141,7 @@ public class RestClientTest {
     public void testRequestDates() {
         when(Unirest.get("/dates")).thenReturn(getRequest);
         when(getRequest.asJson()).thenReturn(httpResponse);
+        when(httpResponse.getStatus()).thenReturn(200);
         when(httpResponse.getBody()).thenReturn(value);
         when(value.toString()).thenReturn("[{\"id\": 1, \"date\": \"March 22, 2025\"}]");
 
@@ -141,6 +152,15 @@ public class RestClientTest {
         assertEquals("March 22, 2025", result.get(0).get("date").getAsString());
     }
 
+    @Test
+    public void testRequestDatesFailed() {
+        when(Unirest.get("/dates")).thenReturn(getRequest);
+        when(getRequest.asJson()).thenReturn(httpResponse);
+        when(httpResponse.getStatus()).thenReturn(500);
+
+        assertTrue(client.requestDates().isEmpty());
+    }
+
     // SPACE COMPANY REQUESTS
     /**
      * Tests the retrieval of space company information from the server.
@@ -161,6 +181,54 @@ public class RestClientTest {
         assertEquals("Virgin Galactic", result.get(0).get("name").getAsString());
     }
 
+    /**
+     * Tests that space companies are revalidated with their ETag.
+     * Verifies that the kept companies are returned when the server responds with 304.
+     */
+    @Test
+    public void testRequestSpaceCompaniesNotModified() {
+        HttpResponse<JsonNode> notModifiedResponse = mock(HttpResponse.class);
+        Headers headers = new Headers();
+        headers.add("ETag", "\"companies-1\"");
+        when(Unirest.get("/companies")).thenReturn(getRequest);
+        when(getRequest.asJson()).thenReturn(httpResponse, notModifiedResponse);
+        when(httpResponse.getStatus()).thenReturn(200);
+        when(httpResponse.getBody()).thenReturn(value);
+        when(httpResponse.getHeaders()).thenReturn(headers);
+        when(value.toString()).thenReturn("[{\"id\":1,\"name\":\"Virgin Galactic\"}]");
+        when(getRequest.header("If-None-Match", "\"companies-1\"")).thenReturn(getRequest);
+        when(notModifiedResponse.getStatus()).thenReturn(304);
+
+        try {
+            assertEquals(1, client.requestSpaceCompanies().size());
+            // revalidated once the kept response expired
+            client.expireCachedResponses();
+            List<JsonObject> result = client.requestSpaceCompanies();
+            assertEquals(1, result.size());
+            assertEquals("Virgin Galactic", result.get(0).get("name").getAsString());
+        } finally {
+            client.clearCatalogCache();
+        }
+    }
+
+    /**
+     * Tests that space companies received shortly before are used again.
+     * Verifies that the server is asked only once.
+     */
+    @Test
+    public void testRequestSpaceCompaniesIsCached() {
+        when(Unirest.get("/companies")).thenReturn(getRequest);
+        when(getRequest.asJson()).thenReturn(httpResponse);
+        when(httpResponse.getStatus()).thenReturn(200);
+        when(httpResponse.getBody()).thenReturn(value);
+        when(value.toString()).thenReturn("[{\"id\":1,\"name\":\"Virgin Galactic\"}]");
+
+        assertEquals(1, client.requestSpaceCompanies().size());
+        List<JsonObject> result = client.requestSpaceCompanies();
+        assertEquals("Virgin Galactic", result.get(0).get("name").getAsString());
+        verify(getRequest, times(1)).asJson();
+    }
+
     /**
      * Tests successful retrieval of detailed company information with status 200.
      * Verifies that company details are correctly parsed from the server response.
@@ -412,6 +480,42 @@ public class RestClientTest {
         assertNull(client.getScheduleInfo(1));
     }
 
+    // SEAT REQUESTS
+    /**
+     * Tests retrieval of the taken seats of a flight date as a bitmap with status 200.
+     * Verifies that the bitmap is decoded into the taken seat numbers.
+     */
+    @Test
+    public void testFetchTakenSeatBitmapStatus200() {
+        BitSet taken = new BitSet();
+        taken.set(3);
+        taken.set(42);
+        when(Unirest.get("/seatNumbers")).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.flightDateId, 1)).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.format, StringNames.bitmap)).thenReturn(getRequest);
+        when(getRequest.asJson()).thenReturn(httpResponse);
+        when(httpResponse.getBody()).thenReturn(value);
+        when(value.toString()).thenReturn("{\"flightDateId\":1,\"bitmap\":\"" + Utils.encodeSeatBitmap(taken) + "\"}");
+        when(httpResponse.getStatus()).thenReturn(200);
+
+        assertEquals(taken, client.fetchTakenSeatBitmap(1));
+    }
+
+    /**
+     * Tests handling of the taken seat bitmap request with error status 400.
+     * Verifies that null is returned when the server responds with an error.
+     */
+    @Test
+    public void testFetchTakenSeatBitmapStatus400() {
+        when(Unirest.get("/seatNumbers")).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.flightDateId, 1)).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.format, StringNames.bitmap)).thenReturn(getRequest);
+        when(getRequest.asJson()).thenReturn(httpResponse);
+        when(httpResponse.getStatus()).thenReturn(400);
+
+        assertNull(client.fetchTakenSeatBitmap(1));
+    }
+
     // RESERVATION REQUESTS
     /**
      * Tests successful creation of a new reservation with status 201.
@@ -442,6 +546,9 @@ public class RestClientTest {
             when(requestWithBody.queryString(StringNames.reservedSeats, 3)).thenReturn(requestWithBody);
             when(requestWithBody.queryString(StringNames.seatNumbers, "1,2,3")).thenReturn(requestWithBody);
             when(requestWithBody.header(StringNames.authorization, auth)).thenReturn(requestWithBody);
+            when(requestWithBody.header(eq(StringNames.idempotencyKey), anyString())).thenReturn(requestWithBody);
+            when(requestWithBody.connectTimeout(anyInt())).thenReturn(requestWithBody);
+            when(requestWithBody.socketTimeout(anyInt())).thenReturn(requestWithBody);
             when(requestWithBody.asJson()).thenReturn(httpResponse);
             when(httpResponse.getStatus()).thenReturn(201);
 
@@ -470,6 +577,9 @@ public class RestClientTest {
         when(requestWithBody.queryString(StringNames.reservedSeats, 3)).thenReturn(requestWithBody);
         when(requestWithBody.queryString(StringNames.seatNumbers, "1,2,3")).thenReturn(requestWithBody);  // Add seat numbers mock
         when(requestWithBody.header(StringNames.authorization, auth)).thenReturn(requestWithBody);
+        when(requestWithBody.header(eq(StringNames.idempotencyKey), anyString())).thenReturn(requestWithBody);
+        when(requestWithBody.connectTimeout(anyInt())).thenReturn(requestWithBody);
+        when(requestWithBody.socketTimeout(anyInt())).thenReturn(requestWithBody);
         when(requestWithBody.asJson()).thenReturn(httpResponse);
         when(httpResponse.getStatus()).thenReturn(400);
 
@@ -477,6 +587,37 @@ public class RestClientTest {
         assertFalse(client.createNewReservation(2, 3, seatNumbers));
     }
 
+    /**
+     * Tests that a reservation is created again after the connection failed.
+     * Verifies that both attempts send the same idempotency key, so that the
+     * server executes the reservation only once.
+     */
+    @Test
+    public void testCreateNewReservationRetriesWithSameIdempotencyKey() {
+        client.setUser(new User("noah.const@web.de", "9ikwelf%"));
+        client.getUser().setId(1);
+        String auth = "Basic " + Base64.getEncoder().encodeToString("noah.const@web.de:9ikwelf%".getBytes());
+
+        when(Unirest.post("/reservation/create")).thenReturn(requestWithBody);
+        when(requestWithBody.queryString(StringNames.customerId, 1)).thenReturn(requestWithBody);
+        when(requestWithBody.queryString(StringNames.flightDateId, 2)).thenReturn(requestWithBody);
+        when(requestWithBody.queryString(StringNames.reservedSeats, 3)).thenReturn(requestWithBody);
+        when(requestWithBody.queryString(StringNames.seatNumbers, "1,2,3")).thenReturn(requestWithBody);
+        when(requestWithBody.header(StringNames.authorization, auth)).thenReturn(requestWithBody);
+        when(requestWithBody.header(eq(StringNames.idempotencyKey), anyString())).thenReturn(requestWithBody);
+        when(requestWithBody.connectTimeout(anyInt())).thenReturn(requestWithBody);
+        when(requestWithBody.socketTimeout(anyInt())).thenReturn(requestWithBody);
+        when(requestWithBody.asJson()).thenThrow(new UnirestException("Connection timed out")).thenReturn(httpResponse);
+        when(httpResponse.getStatus()).thenReturn(201);
+
+        List<Integer> seatNumbers = Arrays.asList(1, 2, 3);
+        assertTrue(client.createNewReservation(2, 3, seatNumbers));
+
+        ArgumentCaptor<String> keys = ArgumentCaptor.forClass(String.class);
+        verify(requestWithBody, times(2)).header(eq(StringNames.idempotencyKey), keys.capture());
+        assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+    }
+
     /**
      * Tests successful retrieval of client reservations with status 200.
      * Verifies that reservation details are correctly parsed from the server response.
@@ -525,6 +666,68 @@ public class RestClientTest {
         assertNull(client.getReservationsOfClient());
     }
 
+    /**
+     * Tests the retrieval of all reservations of the user with their details in one request.
+     * Verifies that flight information and seat numbers are returned with each reservation.
+     */
+    @Test
+    public void testGetReservationDetailsOfClient() {
+        client.setUser(new User("noah.const@web.de", "9ikwelf%"));
+        client.getUser().setId(1);
+        String auth = "Basic " + Base64.getEncoder().encodeToString("noah.const@web.de:9ikwelf%".getBytes());
+
+        when(Unirest.get("/reservations/details")).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.customerId, 1)).thenReturn(getRequest);
+        when(getRequest.header(StringNames.authorization, auth)).thenReturn(getRequest);
+        when(getRequest.asJson()).thenReturn(httpResponse);
+        when(httpResponse.getBody()).thenReturn(value);
+        when(value.toString()).thenReturn("[{\"id\":32,\"reserved_seats\":2,\"flightDateId\":11," +
+                "\"companyName\":\"SpaceX\",\"flightName\":\"Starship\",\"seatNumbers\":[3,4]}]");
+        when(httpResponse.getStatus()).thenReturn(200);
+
+        List<JsonObject> result = client.getReservationDetailsOfClient();
+        assertEquals(1, result.size());
+        assertEquals(32, result.get(0).get("id").getAsInt());
+        assertEquals("SpaceX", result.get(0).get("companyName").getAsString());
+        assertEquals(4, result.get(0).getAsJsonArray("seatNumbers").get(1).getAsInt());
+    }
+
+    /**
+     * Tests reading the reservations of the user page by page.
+     * Verifies that the next page starts after the id sent with the previous one.
+     */
+    @Test
+    public void testForEachReservationDetailsPage() {
+        client.setUser(new User("noah.const@web.de", "9ikwelf%"));
+        client.getUser().setId(1);
+        String auth = "Basic " + Base64.getEncoder().encodeToString("noah.const@web.de:9ikwelf%".getBytes());
+        HttpResponse<JsonNode> lastPageResponse = mock(HttpResponse.class);
+        JsonNode lastPage = mock(JsonNode.class);
+        Headers headers = new Headers();
+        headers.add(StringNames.nextAfter, "32");
+
+        when(Unirest.get("/reservations/details")).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.customerId, 1)).thenReturn(getRequest);
+        when(getRequest.header(StringNames.authorization, auth)).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.limit, 1)).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.after, "32")).thenReturn(getRequest);
+        when(getRequest.asJson()).thenReturn(httpResponse, lastPageResponse);
+        when(httpResponse.getStatus()).thenReturn(200);
+        when(httpResponse.getBody()).thenReturn(value);
+        when(httpResponse.getHeaders()).thenReturn(headers);
+        when(value.toString()).thenReturn("[{\"id\":32}]");
+        when(lastPageResponse.getStatus()).thenReturn(200);
+        when(lastPageResponse.getBody()).thenReturn(lastPage);
+        when(lastPageResponse.getHeaders()).thenReturn(new Headers());
+        when(lastPage.toString()).thenReturn("[{\"id\":33}]");
+
+        List<JsonObject> result = new ArrayList<>();
+        assertTrue(client.forEachReservationDetailsPage(1, result::addAll));
+        assertEquals(2, result.size());
+        assertEquals(33, result.get(1).get("id").getAsInt());
+        verify(getRequest).queryString(StringNames.after, "32");
+    }
+
     /**
      * Tests successful deletion of a reservation with status 201.
      * Verifies that the reservation is properly deleted and returns true.
@@ -552,6 +755,9 @@ public class RestClientTest {
             lenient().when(Unirest.delete("/reservation/delete")).thenReturn(requestWithBody);
             lenient().when(requestWithBody.queryString(StringNames.reservationId, 2)).thenReturn(requestWithBody);
             lenient().when(requestWithBody.header(StringNames.authorization, auth)).thenReturn(requestWithBody);
+            lenient().when(requestWithBody.header(eq(StringNames.idempotencyKey), anyString())).thenReturn(requestWithBody);
+            lenient().when(requestWithBody.connectTimeout(anyInt())).thenReturn(requestWithBody);
+            lenient().when(requestWithBody.socketTimeout(anyInt())).thenReturn(requestWithBody);
             lenient().when(requestWithBody.asJson()).thenReturn(deleteResponse);
             lenient().when(deleteResponse.getBody()).thenReturn(deleteValue);
             lenient().when(deleteValue.toString()).thenReturn("[{\"message\":\"Successfully deleted.\"}]");
@@ -585,6 +791,9 @@ public class RestClientTest {
         when(Unirest.delete("/reservation/delete")).thenReturn(requestWithBody);
         when(requestWithBody.queryString(StringNames.reservationId, 2)).thenReturn(requestWithBody);
         when(requestWithBody.header(StringNames.authorization, auth)).thenReturn(requestWithBody);
+        when(requestWithBody.header(eq(StringNames.idempotencyKey), anyString())).thenReturn(requestWithBody);
+        when(requestWithBody.connectTimeout(anyInt())).thenReturn(requestWithBody);
+        when(requestWithBody.socketTimeout(anyInt())).thenReturn(requestWithBody);
         when(requestWithBody.asJson()).thenReturn(httpResponse);
         when(httpResponse.getStatus()).thenReturn(400);
 
@@ -605,6 +814,9 @@ public class RestClientTest {
         when(requestWithBody.queryString(StringNames.reservedSeats, 4)).thenReturn(requestWithBody);
         when(requestWithBody.queryString(StringNames.seatNumbers, "1,2,3,4")).thenReturn(requestWithBody);
         when(requestWithBody.header(StringNames.authorization, auth)).thenReturn(requestWithBody);
+        when(requestWithBody.header(eq(StringNames.idempotencyKey), anyString())).thenReturn(requestWithBody);
+        when(requestWithBody.connectTimeout(anyInt())).thenReturn(requestWithBody);
+        when(requestWithBody.socketTimeout(anyInt())).thenReturn(requestWithBody);
         when(requestWithBody.asJson()).thenReturn(httpResponse);
         when(httpResponse.getBody()).thenReturn(value);
         when(value.toString()).thenReturn("[{\"message\":\"Error message\"}]");
@@ -742,27 +954,16 @@ public class RestClientTest {
     public void testGetFlightDatesPerDateStatus200() {
         java.sql.Date testDate = java.sql.Date.valueOf("2025-03-22");
 
-        // Mock dates-with-flights request
-        when(Unirest.get("/dates-with-flights")).thenReturn(getRequest);
+        // The date is sent as it is, so a single request is needed
+        when(Unirest.get("/schedules/by-calendar-date")).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.date, "2025-03-22")).thenReturn(getRequest);
         when(getRequest.asJson()).thenReturn(httpResponse);
         when(httpResponse.getBody()).thenReturn(value);
-        when(value.toString()).thenReturn("[{\"dateId\":1,\"date\":\"2025-03-22\"}]");
-        when(httpResponse.getStatus()).thenReturn(200);
-
-        // Mock schedules-by-date request
-        GetRequest secondGetRequest = mock(GetRequest.class);
-        HttpResponse<JsonNode> secondResponse = mock(HttpResponse.class);
-        JsonNode secondValue = mock(JsonNode.class);
-
-        when(Unirest.get("/schedules/by-date")).thenReturn(secondGetRequest);
-        when(secondGetRequest.queryString(StringNames.dateId, "1")).thenReturn(secondGetRequest);
-        when(secondGetRequest.asJson()).thenReturn(secondResponse);
-        when(secondResponse.getBody()).thenReturn(secondValue);
-        when(secondValue.toString()).thenReturn("[{\"flightName\":\"Europe Journey\"," +
+        when(value.toString()).thenReturn("[{\"flightName\":\"Europe Journey\"," +
                 "\"flight_duration\":60,\"view_type\":\"Europe\"," +
                 "\"companyName\":\"Virgin Galactic\",\"launch_time\":\"13:30:00\"," +
                 "\"available_seats\":50,\"flightDateId\":1}]");
-        when(secondResponse.getStatus()).thenReturn(200);
+        when(httpResponse.getStatus()).thenReturn(200);
 
         List<JsonObject> result = client.getFlightDatesPerDate(testDate);
 
@@ -777,64 +978,17 @@ public class RestClientTest {
     }
 
     /**
-     * Tests handling of flight dates request when the first request fails.
-     * Verifies that an empty list is returned when the dates-with-flights request fails.
+     * Tests handling of flight dates request when the date has no available flights.
+     * Verifies that an empty list is returned when the server responds with 404.
      */
     @Test
-    public void testGetFlightDatesPerDateFirstRequestFails() {
+    public void testGetFlightDatesPerDateNoFlights() {
         java.sql.Date testDate = java.sql.Date.valueOf("2025-03-22");
 
-        // Mock dates-with-flights request failure
-        when(Unirest.get("/dates-with-flights")).thenReturn(getRequest);
+        when(Unirest.get("/schedules/by-calendar-date")).thenReturn(getRequest);
+        when(getRequest.queryString(StringNames.date, "2025-03-22")).thenReturn(getRequest);
         when(getRequest.asJson()).thenReturn(httpResponse);
-        when(httpResponse.getStatus()).thenReturn(400);
-
-        List<JsonObject> result = client.getFlightDatesPerDate(testDate);
-        assertTrue(result.isEmpty());
-    }
-
-    /**
-     * Tests handling of flight dates request when the second request fails.
-     * Verifies that an empty list is returned when the schedules-by-date request fails.
-     */
-    @Test
-    public void testGetFlightDatesPerDateSecondRequestFails() {
-        java.sql.Date testDate = java.sql.Date.valueOf("2025-03-22");
-
-        // Mock successful dates-with-flights request
-        when(Unirest.get("/dates-with-flights")).thenReturn(getRequest);
-        when(getRequest.asJson()).thenReturn(httpResponse);
-        when(httpResponse.getBody()).thenReturn(value);
-        when(value.toString()).thenReturn("[{\"dateId\":1,\"date\":\"2025-03-22\"}]");
-        when(httpResponse.getStatus()).thenReturn(200);
-
-        // Mock failed schedules-by-date request
-        GetRequest secondGetRequest = mock(GetRequest.class);
-        HttpResponse<JsonNode> secondResponse = mock(HttpResponse.class);
-
-        when(Unirest.get("/schedules/by-date")).thenReturn(secondGetRequest);
-        when(secondGetRequest.queryString(StringNames.dateId, "1")).thenReturn(secondGetRequest);
-        when(secondGetRequest.asJson()).thenReturn(secondResponse);
-        when(secondResponse.getStatus()).thenReturn(400);
-
-        List<JsonObject> result = client.getFlightDatesPerDate(testDate);
-        assertTrue(result.isEmpty());
-    }
-
-    /**
-     * Tests handling of flight dates request when no matching date is found.
-     * Verifies that an empty list is returned when the requested date doesn't match any available dates.
-     */
-    @Test
-    public void testGetFlightDatesPerDateNoMatchingDate() {
-        java.sql.Date testDate = java.sql.Date.valueOf("2025-03-22");
-
-        // Mock dates-with-flights request with non-matching date
-        when(Unirest.get("/dates-with-flights")).thenReturn(getRequest);
-        when(getRequest.asJson()).thenReturn(httpResponse);
-        when(httpResponse.getBody()).thenReturn(value);
-        when(value.toString()).thenReturn("[{\"dateId\":1,\"date\":\"2025-04-17\"}]");
-        when(httpResponse.getStatus()).thenReturn(200);
+        when(httpResponse.getStatus()).thenReturn(404);
 
         List<JsonObject> result = client.getFlightDatesPerDate(testDate);
         assertTrue(result.isEmpty());
@@ -0,0 +1,61 @@
+package rest_client;
+
+import org.junit.jupiter.api.Test;
+import utils.StringNames;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeatSubscriptionTest {
+
+    //Passes one server-sent event to the subscription, line by line.
+    private static void sendEvent(SeatSubscription subscription, String event, String data) {
+        subscription.onNext("event: " + event);
+        subscription.onNext("data: " + data);
+        subscription.onNext("");
+    }
+
+    @Test
+    public void testEventsUpdateTakenSeats() {
+        AtomicInteger changes = new AtomicInteger();
+        SeatSubscription subscription = new SeatSubscription(1, changes::incrementAndGet);
+        assertFalse(subscription.isReady());
+
+        sendEvent(subscription, StringNames.seatsEvent, "{\"flightDateId\":1,\"seats\":[3,5]}");
+        assertTrue(subscription.isReady());
+        assertEquals(List.of(3, 5), subscription.getTakenSeats());
+
+        sendEvent(subscription, StringNames.seatTakenEvent, "{\"flightDateId\":1,\"seats\":[4]}");
+        //comments keep the connection alive and are ignored
+        subscription.onNext(": keep-alive");
+        sendEvent(subscription, StringNames.seatReleasedEvent, "{\"flightDateId\":1,\"seats\":[3]}");
+        assertEquals(List.of(4, 5), subscription.getTakenSeats());
+        assertTrue(subscription.isTaken(4));
+        assertFalse(subscription.isTaken(3));
+        assertEquals(3, changes.get());
+    }
+
+    @Test
+    public void testInvalidEventsAreIgnored() {
+        AtomicInteger changes = new AtomicInteger();
+        SeatSubscription subscription = new SeatSubscription(1, changes::incrementAndGet);
+
+        sendEvent(subscription, StringNames.seatsEvent, "not json");
+        sendEvent(subscription, "unknown", "{\"seats\":[1]}");
+        assertFalse(subscription.isReady());
+        assertEquals(0, changes.get());
+    }
+
+    @Test
+    public void testClosedSubscriptionIsNotReady() {
+        SeatSubscription subscription = new SeatSubscription(1, () -> {
+        });
+        sendEvent(subscription, StringNames.seatsEvent, "{\"flightDateId\":1,\"seats\":[]}");
+        assertTrue(subscription.isReady());
+
+        subscription.close();
+        assertFalse(subscription.isReady());
+    }
+}
@@ -0,0 +1,159 @@
+package rest_server;
+
+import model.DatabaseConnector;
+import model.RowCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AvailabilityIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private DatabaseConnector mockDbConn;
+    private AvailabilityIndex availabilityIndex;
+    private final List<Object[]> rows = new ArrayList<>();
+
+    //Lets the join that builds the index return the rows added with addSlot.
+    @BeforeEach
+    public void createIndex() {
+        mockDbConn = mock(DatabaseConnector.class);
+        when(mockDbConn.executeStreamingSelectQuery(any(), any(), any(), any(), isNull(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<DatabaseConnector.CursorWork<?>>getArgument(6)
+                        .read(new RowCursor() {
+                            private int row = -1;
+
+                            @Override
+                            public int getColumnCount() {
+                                return 11;
+                            }
+
+                            @Override
+                            public String getColumnLabel(int column) {
+                                return "column" + column;
+                            }
+
+                            @Override
+                            public boolean next() {
+                                return ++row < rows.size();
+                            }
+
+                            @Override
+                            public Object getObject(int column) {
+                                return rows.get(row)[column - 1];
+                            }
+                        }));
+        availabilityIndex = new AvailabilityIndex(mockDbConn);
+    }
+
+    //Adds a flight date with the given id on the day with the given id.
+    private void addSlot(int flightDateId, int dateId, LocalDate date, LocalTime launchTime, int availableSeats) {
+        rows.add(new Object[]{"Flight " + flightDateId, 120, "Europe", "Company", Time.valueOf(launchTime),
+                availableSeats, flightDateId, 1, 1, dateId, Date.valueOf(date)});
+    }
+
+    @Test
+    public void testGetSchedules() {
+        addSlot(1, 1, TODAY.plusDays(1), LocalTime.of(10, 0), 5);
+        addSlot(2, 1, TODAY.plusDays(1), LocalTime.of(12, 0), 0);
+        addSlot(3, 1, TODAY.plusDays(1), LocalTime.of(14, 0), 1);
+
+        List<Map<String, Object>> schedules = availabilityIndex.getSchedules(1);
+        assertEquals(2, schedules.size());
+        assertEquals("Flight 1", schedules.get(0).get("flightName"));
+        assertEquals(5, schedules.get(0).get("available_seats"));
+        assertEquals(Time.valueOf(LocalTime.of(10, 0)), schedules.get(0).get("launch_time"));
+        assertEquals(3, schedules.get(1).get("flightDateId"));
+
+        assertTrue(availabilityIndex.getSchedules(2).isEmpty());
+    }
+
+    @Test
+    public void testGetSchedulesByCalendarDate() {
+        addSlot(1, 1, TODAY.plusDays(1), LocalTime.of(10, 0), 5);
+        addSlot(2, 2, TODAY.plusDays(2), LocalTime.of(10, 0), 5);
+
+        List<Map<String, Object>> schedules = availabilityIndex.getSchedules(TODAY.plusDays(2));
+        assertEquals(1, schedules.size());
+        assertEquals(2, schedules.get(0).get("flightDateId"));
+        assertTrue(availabilityIndex.getSchedules(TODAY.plusDays(3)).isEmpty());
+        assertTrue(availabilityIndex.getSchedules(TODAY.minusDays(1)).isEmpty());
+    }
+
+    @Test
+    public void testGetDatesWithFlights() {
+        addSlot(1, 3, TODAY.plusDays(3), LocalTime.of(10, 0), 5);
+        addSlot(2, 2, TODAY.plusDays(2), LocalTime.of(10, 0), 0);
+        addSlot(3, 1, TODAY.plusDays(1), LocalTime.of(10, 0), 5);
+        addSlot(4, 1, TODAY.plusDays(1), LocalTime.of(11, 0), 5);
+        //already launched
+        addSlot(5, 4, TODAY, LocalTime.MIN, 5);
+
+        List<Map<String, Object>> dates = availabilityIndex.getDatesWithFlights();
+        assertEquals(2, dates.size());
+        assertEquals(1, dates.get(0).get("dateId"));
+        assertEquals(Date.valueOf(TODAY.plusDays(1)), dates.get(0).get("date"));
+        assertEquals(3, dates.get(1).get("dateId"));
+        assertTrue(availabilityIndex.getSchedules(4).isEmpty());
+    }
+
+    @Test
+    public void testAvailableSeatsAreUpdated() {
+        addSlot(1, 1, TODAY.plusDays(1), LocalTime.of(10, 0), 1);
+        assertEquals(1, availabilityIndex.getDatesWithFlights().size());
+
+        availabilityIndex.availableSeatsChanged(1, 0);
+        assertTrue(availabilityIndex.getDatesWithFlights().isEmpty());
+        assertTrue(availabilityIndex.getSchedules(1).isEmpty());
+
+        availabilityIndex.availableSeatsChanged(1, 2);
+        assertEquals(2, availabilityIndex.getSchedules(1).get(0).get("available_seats"));
+
+        //the index is built only once
+        verify(mockDbConn, times(1)).executeStreamingSelectQuery(any(), any(), any(), any(), isNull(), anyInt(),
+                any());
+    }
+
+    @Test
+    public void testSeatInventoryUpdatesIndex() {
+        addSlot(1, 1, TODAY.plusDays(1), LocalTime.of(10, 0), 1);
+        Map<String, Object> flightDate = new HashMap<>();
+        flightDate.put("available_seats", 1);
+        when(mockDbConn.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHT_DATES}, null,
+                "id = ?", new String[]{"1"})).thenReturn(List.of(flightDate));
+        SeatInventory seatInventory = new SeatInventory(mockDbConn);
+        seatInventory.addListener(availabilityIndex);
+        assertEquals(1, availabilityIndex.getSchedules(1).size());
+
+        SeatInventory.SeatHold hold = seatInventory.hold(1, 1, List.of(1));
+        assertTrue(availabilityIndex.getSchedules(1).isEmpty());
+
+        hold.cancel();
+        assertEquals(1, availabilityIndex.getSchedules(1).size());
+    }
+
+    @Test
+    public void testFailedBuild() {
+        when(mockDbConn.executeStreamingSelectQuery(any(), any(), any(), any(), isNull(), anyInt(), any()))
+                .thenReturn(null);
+        assertNull(availabilityIndex.getSchedules(1));
+        assertNull(availabilityIndex.getDatesWithFlights());
+    }
+}
@@ -0,0 +1,132 @@
+package rest_server;
+
+import com.google.gson.Gson;
+import model.DatabaseConnector;
+import model.RowCursor;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CatalogCacheTest {
+
+    //Lets the streaming query of all companies return the given names, numbered by id from 1.
+    private static DatabaseConnector mockCompanies(String... names) {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        when(mockDbConn.executeStreamingSelectQuery(eq(new String[]{"*"}),
+                eq(new String[]{DatabaseConnector.COMPANIES}), isNull(), isNull(), isNull(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<DatabaseConnector.CursorWork<?>>getArgument(6)
+                        .read(new RowCursor() {
+                            private int row;
+
+                            @Override
+                            public int getColumnCount() {
+                                return 2;
+                            }
+
+                            @Override
+                            public String getColumnLabel(int column) {
+                                return column == 1 ? "id" : "name";
+                            }
+
+                            @Override
+                            public boolean next() {
+                                return ++row <= names.length;
+                            }
+
+                            @Override
+                            public Object getObject(int column) {
+                                return column == 1 ? (Object) row : names[row - 1];
+                            }
+                        }));
+        return mockDbConn;
+    }
+
+    @Test
+    public void testSnapshot() {
+        CatalogCache cache = new CatalogCache(mockCompanies("SpaceX", "Blue Origin"), new Gson());
+        CatalogCache.Snapshot snapshot = cache.get(DatabaseConnector.COMPANIES);
+
+        assertEquals(2, snapshot.getRows().size());
+        assertEquals("Blue Origin", snapshot.get(2).get("name"));
+        assertNull(snapshot.get(3));
+        assertEquals("[{\"id\":1,\"name\":\"SpaceX\"},{\"id\":2,\"name\":\"Blue Origin\"}]",
+                new String(snapshot.getJson(), StandardCharsets.UTF_8));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getRows().clear());
+    }
+
+    @Test
+    public void testRowsAfter() {
+        CatalogCache cache = new CatalogCache(mockCompanies("SpaceX", "Blue Origin", "Virgin Galactic"), new Gson());
+        CatalogCache.Snapshot snapshot = cache.get(DatabaseConnector.COMPANIES);
+
+        assertEquals(2, snapshot.getRowsAfter(0, 2).size());
+        assertEquals("Blue Origin", snapshot.getRowsAfter(1, 2).get(0).get("name"));
+        assertEquals(1, snapshot.getRowsAfter(2, 2).size());
+        assertTrue(snapshot.getRowsAfter(3, 2).isEmpty());
+    }
+
+    @Test
+    public void testSnapshotIsReusedUntilInvalidated() {
+        DatabaseConnector mockDbConn = mockCompanies("SpaceX");
+        CatalogCache cache = new CatalogCache(mockDbConn, new Gson());
+
+        CatalogCache.Snapshot snapshot = cache.get(DatabaseConnector.COMPANIES);
+        assertSame(snapshot, cache.get(DatabaseConnector.COMPANIES));
+
+        cache.invalidate(DatabaseConnector.COMPANIES);
+        assertNotSame(snapshot, cache.get(DatabaseConnector.COMPANIES));
+        verify(mockDbConn, times(2)).executeStreamingSelectQuery(any(), any(), any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void testExpiredSnapshotIsLoadedAgain() {
+        DatabaseConnector mockDbConn = mockCompanies("SpaceX");
+        CatalogCache cache = new CatalogCache(mockDbConn, new Gson(), 0);
+
+        CatalogCache.Snapshot snapshot = cache.get(DatabaseConnector.COMPANIES);
+        assertNotSame(snapshot, cache.get(DatabaseConnector.COMPANIES));
+    }
+
+    @Test
+    public void testVersionChangesWithContent() {
+        String[] names = {"SpaceX"};
+        CatalogCache cache = new CatalogCache(mockCompanies(names), new Gson(), 0);
+        CatalogCache.Snapshot snapshot = cache.get(DatabaseConnector.COMPANIES);
+
+        //loaded again with the same content
+        CatalogCache.Snapshot reloaded = cache.get(DatabaseConnector.COMPANIES);
+        assertNotSame(snapshot, reloaded);
+        assertEquals(snapshot.getETag(), reloaded.getETag());
+
+        names[0] = "Blue Origin";
+        CatalogCache.Snapshot changed = cache.get(DatabaseConnector.COMPANIES);
+        assertTrue(changed.getVersion() > snapshot.getVersion());
+        assertNotEquals(snapshot.getETag(), changed.getETag());
+        assertTrue(changed.getETag().startsWith("\"" + DatabaseConnector.COMPANIES));
+    }
+
+    @Test
+    public void testFailedLoad() {
+        DatabaseConnector mockDbConn = mockCompanies("SpaceX");
+        CatalogCache cache = new CatalogCache(mockDbConn, new Gson(), 0);
+        CatalogCache.Snapshot snapshot = cache.get(DatabaseConnector.COMPANIES);
+
+        //keeps the previous snapshot if the table cannot be loaded again
+        when(mockDbConn.executeStreamingSelectQuery(any(), any(), any(), any(), any(), anyInt(), any()))
+                .thenReturn(null);
+        assertSame(snapshot, cache.get(DatabaseConnector.COMPANIES));
+
+        //a table that was never loaded has no snapshot
+        assertNull(cache.get(DatabaseConnector.FLIGHTS));
+    }
+}
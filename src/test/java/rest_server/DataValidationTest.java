@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.ArgumentMatchers.eq;
 
@@ -54,6 +56,18 @@ public class DataValidationTest {
         assertTrue(dataVal.isValidId("1000"));
     }
 
+    @Test
+    public void testIsValidDate() {
+        createAndAssignMockObjectSelectQuery(null, null, null, null, null, false, null, null);
+
+        assertFalse(dataVal.isValidDate(null));
+        assertFalse(dataVal.isValidDate(""));
+        assertFalse(dataVal.isValidDate("22.03.2025"));
+        assertFalse(dataVal.isValidDate("2025-02-30"));
+
+        assertTrue(dataVal.isValidDate("2025-03-22"));
+    }
+
     @Test
     public void testIsValidIdFromDatabase() {
         createAndAssignMockObjectSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.CUSTOMERS}, null,
@@ -91,6 +105,33 @@ public class DataValidationTest {
         assertFalse(dataVal.isUserAuthorized(null, "1"));
     }
 
+    @Test
+    public void testIsUserAuthorizedCachesSuccess() {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        String[] args = new String[]{"1", "email@test.de", "testPassword"};
+        List<Map<String, Object>> customer = new ArrayList<>();
+        customer.add(new HashMap<>(Map.of("id", 1)));
+        when(mockDbConn.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.CUSTOMERS}, null,
+                "id = ? and email = ? and password = ?", args)).thenReturn(customer);
+        DataValidation validation = new DataValidation(mockDbConn);
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
+
+        //only the first check queries the database
+        assertTrue(validation.isUserAuthorized(authorization, "1"));
+        assertTrue(validation.isUserAuthorized(authorization, "1"));
+        assertTrue(validation.isUserAuthorized(authorization, "1"));
+        verify(mockDbConn, times(1)).executeSelectQuery(new String[]{"*"},
+                new String[]{DatabaseConnector.CUSTOMERS}, null, "id = ? and email = ? and password = ?", args);
+
+        //the cached header is not valid for other users
+        assertFalse(validation.isUserAuthorized(authorization, "2"));
+
+        //after invalidation the credentials are checked again
+        validation.getAuthCache().invalidate("1");
+        customer.clear();
+        assertFalse(validation.isUserAuthorized(authorization, "1"));
+    }
+
     @Test
     public void testIsValidAmountOfSeats() {
         createAndAssignMockObjectSelectQuery(
@@ -0,0 +1,51 @@
+package rest_server;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GsonMapperTest {
+
+    private final GsonMapper mapper = new GsonMapper(new Gson());
+
+    //Streams the value and returns what was written.
+    private String stream(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapper.toJsonStream(value, value.getClass(), out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testStreamMatchesString() throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", i);
+            row.put("name", "<Flight & Co> " + i);
+            row.put("date", Date.valueOf("2025-01-0" + (i + 1)));
+            row.put("launch_time", Time.valueOf("14:00:00"));
+            row.put("view_type", null);
+            rows.add(row);
+        }
+
+        assertEquals(mapper.toJsonString(rows, rows.getClass()), stream(rows));
+        assertEquals(mapper.toJsonString(List.of(1, 2, 3), List.class), stream(new ArrayList<>(List.of(1, 2, 3))));
+        assertEquals("[]", stream(new ArrayList<>()));
+    }
+
+    @Test
+    public void testStreamWritesUtf8() throws IOException {
+        assertEquals("[\"Zürich\"]", stream(new String[]{"Zürich"}));
+    }
+}
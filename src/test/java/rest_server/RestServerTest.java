@@ -3,18 +3,29 @@ package rest_server;
 import kong.unirest.HttpResponse;
 import kong.unirest.JsonNode;
 import kong.unirest.Unirest;
+import kong.unirest.UnirestException;
 import kong.unirest.json.JSONObject;
 import model.DatabaseConnector;
+import model.RowCursor;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import utils.StringNames;
 
+import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RestServerTest {
@@ -251,6 +262,157 @@ public class RestServerTest {
 
     // ---------------------------------- END ----------------------------------
 
+    /**
+     * Creates a mock object of <code>{@link DatabaseConnector}</code> whose
+     * streaming SELECT query without condition returns one row with the given
+     * key and value, and assigns it to the server.
+     *
+     * @param projection the array with column names
+     * @param tables     the array with database table names
+     * @param key        the column label of the returned row
+     * @param value      the value of the column
+     * @return the create mock object for the class
+     * <code>{@link DatabaseConnector}</code>
+     */
+    private DatabaseConnector createAndAssignMockObjectStreamingSelectQuery(String[] projection, String[] tables,
+                                                                           String key, Object value) {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        when(mockDbConn.executeStreamingSelectQuery(eq(projection), eq(tables), isNull(), isNull(), isNull(),
+                anyInt(), any())).thenAnswer(invocation ->
+                invocation.<DatabaseConnector.CursorWork<?>>getArgument(6)
+                        .read(new ListRowCursor(new String[]{key}, Collections.singletonList(new Object[]{value}))));
+        restServer.setDbConnectorAndDataValidator(mockDbConn);
+        return mockDbConn;
+    }
+
+    /**
+     * {@link RowCursor} over rows given as arrays.
+     */
+    private static class ListRowCursor implements RowCursor {
+        private final String[] labels;
+        private final Iterator<Object[]> rows;
+        private Object[] current;
+
+        private ListRowCursor(String[] labels, List<Object[]> rows) {
+            this.labels = labels;
+            this.rows = rows.iterator();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return labels.length;
+        }
+
+        @Override
+        public String getColumnLabel(int column) {
+            return labels[column - 1];
+        }
+
+        @Override
+        public boolean next() {
+            current = rows.hasNext() ? rows.next() : null;
+            return current != null;
+        }
+
+        @Override
+        public Object getObject(int column) {
+            return current[column - 1];
+        }
+    }
+
+    /**
+     * {@link RowCursor} with one row that fails when the next row is fetched,
+     * like a connection lost while streaming.
+     */
+    private static class FailingRowCursor implements RowCursor {
+        private int rows;
+
+        @Override
+        public int getColumnCount() {
+            return 1;
+        }
+
+        @Override
+        public String getColumnLabel(int column) {
+            return "id";
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            if (rows++ > 0) {
+                throw new SQLException("Connection lost");
+            }
+            return true;
+        }
+
+        @Override
+        public Object getObject(int column) {
+            return rows;
+        }
+    }
+
+    /**
+     * Lets the given mock object of <code>{@link DatabaseConnector}</code> run
+     * every transaction against a mock transaction. The statements issued in the
+     * transaction are then mocked on the returned object.
+     *
+     * @param mockDbConn the mock object on which transactions are run
+     * @return the mock transaction handed to the transaction work
+     */
+    private DatabaseConnector.Transaction addMockTransaction(DatabaseConnector mockDbConn) {
+        DatabaseConnector.Transaction tx = mock(DatabaseConnector.Transaction.class);
+        when(mockDbConn.inTransaction(any())).thenAnswer(invocation ->
+                invocation.<DatabaseConnector.TransactionWork<?>>getArgument(0).execute(tx));
+        return tx;
+    }
+
+    /**
+     * Adds an UPDATE to the given mock transaction, see
+     * <code>{@link #addMockUpdateQuery(DatabaseConnector, String, String[], String[], String, String[], boolean)}</code>.
+     *
+     * @param updatedRows the number of rows the update should report
+     */
+    private void addMockTransactionUpdate(DatabaseConnector.Transaction tx, String table, String[] modification,
+                                          String[] modificationArgs, String selection, String[] selectionArgs,
+                                          int updatedRows) throws SQLException {
+        when(tx.update(table, modification, modificationArgs, selection, selectionArgs)).thenReturn(updatedRows);
+    }
+
+    /**
+     * Adds a DELETE to the given mock transaction, see
+     * <code>{@link #addMockDeleteQuery(DatabaseConnector, String, String, String[], boolean)}</code>.
+     *
+     * @param deletedRows the number of rows the deletion should report
+     */
+    private void addMockTransactionDelete(DatabaseConnector.Transaction tx, String table, String selection,
+                                          String[] selectionArgs, int deletedRows) throws SQLException {
+        when(tx.delete(table, selection, selectionArgs)).thenReturn(deletedRows);
+    }
+
+    /**
+     * Adds a batch INSERT to the given mock transaction. The rows are compared
+     * element by element, since the list holds arrays. The mocked generated
+     * keys are numbered from 1.
+     *
+     * @param tx      the mock transaction to which the batch INSERT is added
+     * @param table   the name of the table
+     * @param columns the array containing the columns to insert values
+     * @param rows    the expected rows in insertion order
+     */
+    private void addMockTransactionBatchInsert(DatabaseConnector.Transaction tx, String table, String[] columns,
+                                               String[][] rows) throws SQLException {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            keys.add(i + 1);
+        }
+        when(tx.batchInsert(
+                eq(table),
+                eq(columns),
+                argThat(actual -> actual != null && actual.size() == rows.length
+                        && IntStream.range(0, rows.length).allMatch(i -> Arrays.equals(rows[i], actual.get(i))))
+        )).thenReturn(keys);
+    }
+
     /**
      * The implemented endpoints of the class RestServer which should be tested in
      * this class are all highly dependent on the class DatabaseConnector. Therefore,
@@ -293,8 +455,8 @@ public class RestServerTest {
     @Test
     public void testGetAllDates() {
         // create mock object for DatabaseConnector
-        createAndAssignMockObjectSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.DATES}, null, null,
-                null, true, "testSelect", "selectItem");
+        createAndAssignMockObjectStreamingSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.DATES},
+                "testSelect", "selectItem");
 
         // make request to REST client
         HttpResponse<JsonNode> response = Unirest.get("/dates").asJson();
@@ -350,8 +512,8 @@ public class RestServerTest {
     // no query parameters
     @Test
     public void testGetAllSpaceCompanies() {
-        createAndAssignMockObjectSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.COMPANIES}, null,
-                null, null, true, "testSelect", "selectItem");
+        createAndAssignMockObjectStreamingSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.COMPANIES},
+                "testSelect", "selectItem");
         HttpResponse<JsonNode> response = Unirest.get("/companies").asJson();
         assertEquals(200, response.getStatus());
         assertEquals("selectItem", response.getBody().getArray().getJSONObject(0).getString("testSelect"));
@@ -383,14 +545,54 @@ public class RestServerTest {
         assertEquals("Id must be an integer and greater than 0.", response.getBody().getArray().getString(0));
     }
 
+    // company ids are looked up in the cached table without a query
+    @Test
+    public void testGetSpaceCompaniesFromCache() {
+        DatabaseConnector mockDbConn = createAndAssignMockObjectStreamingSelectQuery(new String[]{"*"},
+                new String[]{DatabaseConnector.COMPANIES}, "id", 1);
+
+        HttpResponse<JsonNode> response = Unirest.get("/companies").queryString(StringNames.companyId, "1").asJson();
+        assertEquals(200, response.getStatus());
+        assertEquals(1, response.getBody().getArray().getJSONObject(0).getInt("id"));
+
+        response = Unirest.get("/companies").queryString(StringNames.companyId, "2").asJson();
+        assertEquals(404, response.getStatus());
+        assertEquals("Company with id 2 not found.", response.getBody().getArray().getString(0));
+
+        verify(mockDbConn, never()).executeSelectQuery(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testGetSpaceCompaniesNotModified() {
+        DatabaseConnector mockDbConn = createAndAssignMockObjectStreamingSelectQuery(new String[]{"*"},
+                new String[]{DatabaseConnector.COMPANIES}, "id", 1);
+
+        HttpResponse<JsonNode> response = Unirest.get("/companies").asJson();
+        assertEquals(200, response.getStatus());
+        String etag = response.getHeaders().getFirst("ETag");
+        assertFalse(etag.isEmpty());
+
+        response = Unirest.get("/companies").header("If-None-Match", etag).asJson();
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeaders().getFirst("ETag"));
+
+        response = Unirest.get("/companies").header("If-None-Match", "\"companies-0\"").asJson();
+        assertEquals(200, response.getStatus());
+        assertEquals(1, response.getBody().getArray().getJSONObject(0).getInt("id"));
+
+        //the companies were loaded only once
+        verify(mockDbConn, times(1)).executeStreamingSelectQuery(any(), any(), any(), any(), any(), anyInt(),
+                any());
+    }
+
 // ------------------------------------------------------------------------------------------------------------------------
 // SPACE FLIGHT REQUESTS
 
     // no query parameters
     @Test
     public void testGetAllSpaceFlights() {
-        createAndAssignMockObjectSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHTS}, null,
-                null, null, true, "testSelect", "selectItem");
+        createAndAssignMockObjectStreamingSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHTS},
+                "testSelect", "selectItem");
         HttpResponse<JsonNode> response = Unirest.get("/flights").asJson();
         assertEquals(200, response.getStatus());
         assertEquals("selectItem", response.getBody().getArray().getJSONObject(0).getString("testSelect"));
@@ -476,13 +678,25 @@ public class RestServerTest {
     // no query parameters
     @Test
     public void testGetAllFlightSchedules() {
-        createAndAssignMockObjectSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHT_SCHEDULES},
-                null, null, null, true, "testSelect", "selectItem");
+        createAndAssignMockObjectStreamingSelectQuery(new String[]{"*"},
+                new String[]{DatabaseConnector.FLIGHT_SCHEDULES}, "testSelect", "selectItem");
         HttpResponse<JsonNode> response = Unirest.get("/schedules").asJson();
         assertEquals(200, response.getStatus());
         assertEquals("selectItem", response.getBody().getArray().getJSONObject(0).getString("testSelect"));
     }
 
+    @Test
+    public void testFailedStreamOfSchedulesAbortsTheResponse() {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        when(mockDbConn.executeStreamingSelectQuery(any(), any(), isNull(), isNull(), isNull(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<DatabaseConnector.CursorWork<?>>getArgument(6)
+                        .read(new FailingRowCursor()));
+        restServer.setDbConnectorAndDataValidator(mockDbConn);
+
+        //neither a truncated array with status 200 nor an error written into the committed response
+        assertThrows(UnirestException.class, () -> Unirest.get("/schedules").asString());
+    }
+
     // with query parameter flightDateId
     @Test
     public void testGetOneScheduleWithCorrectId() {
@@ -578,6 +792,110 @@ public class RestServerTest {
         assertEquals("selectItem", response.getBody().getArray().getJSONObject(0).getString("testSelect"));
     }
 
+    /**
+     * Tests retrieval of one page of the reservations of a customer.
+     * Verifies that the page is limited and the id to continue after is sent.
+     */
+    @Test
+    public void testGetReservationsPage() {
+        DatabaseConnector mockDbConn = createAndAssignMockObjectSelectQuery(new String[]{"*"},
+                new String[]{DatabaseConnector.CUSTOMERS}, null, "id = ? and email = ? and password = ?",
+                new String[]{"1", "email@test.de", "testPassword"}, true, "key", "value");
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int id = 6; id <= 8; id++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            rows.add(row);
+        }
+        when(mockDbConn.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.RESERVATIONS}, null,
+                "customerId = ? and id > ? ORDER BY id LIMIT 11", new String[]{"1", "5"})).thenReturn(rows);
+        when(mockDbConn.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.RESERVATIONS}, null,
+                "customerId = ? and id > ? ORDER BY id LIMIT 11", new String[]{"1", "8"}))
+                .thenReturn(new ArrayList<>());
+
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
+        HttpResponse<JsonNode> response = Unirest.get("/reservations").queryString(StringNames.customerId, "1")
+                .queryString(StringNames.after, 5).queryString(StringNames.limit, 2)
+                .header(StringNames.authorization, authorization).asJson();
+        assertEquals(200, response.getStatus());
+        assertEquals(2, response.getBody().getArray().length());
+        assertEquals(7, response.getBody().getArray().getJSONObject(1).getInt("id"));
+        assertEquals("7", response.getHeaders().getFirst(StringNames.nextAfter));
+
+        //small limits share one statement text, the page is cut to the limit
+        response = Unirest.get("/reservations").queryString(StringNames.customerId, "1")
+                .queryString(StringNames.after, 5).queryString(StringNames.limit, 10)
+                .header(StringNames.authorization, authorization).asJson();
+        assertEquals(200, response.getStatus());
+        assertEquals(3, response.getBody().getArray().length());
+        assertTrue(response.getHeaders().getFirst(StringNames.nextAfter).isEmpty());
+
+        //a page after the last reservation is empty, not an error
+        response = Unirest.get("/reservations").queryString(StringNames.customerId, "1")
+                .queryString(StringNames.after, 8).queryString(StringNames.limit, 2)
+                .header(StringNames.authorization, authorization).asJson();
+        assertEquals(200, response.getStatus());
+        assertEquals(0, response.getBody().getArray().length());
+        assertTrue(response.getHeaders().getFirst(StringNames.nextAfter).isEmpty());
+    }
+
+    @Test
+    public void testGetReservationsPageWithInvalidLimit() {
+        createAndAssignMockObjectSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.CUSTOMERS}, null,
+                "id = ? and email = ? and password = ?", new String[]{"1", "email@test.de", "testPassword"}, true,
+                "key", "value");
+
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
+        HttpResponse<JsonNode> response = Unirest.get("/reservations").queryString(StringNames.customerId, "1")
+                .queryString(StringNames.limit, 0)
+                .header(StringNames.authorization, authorization).asJson();
+        assertEquals(400, response.getStatus());
+    }
+
+    /**
+     * Tests retrieval of all reservations of a customer with their details.
+     * Verifies that the concatenated seat numbers are returned as array.
+     */
+    @Test
+    public void testGetReservationDetails() {
+        DatabaseConnector mockDbConn = createAndAssignMockObjectSelectQuery(new String[]{"*"},
+                new String[]{DatabaseConnector.CUSTOMERS}, null, "id = ? and email = ? and password = ?",
+                new String[]{"1", "email@test.de", "testPassword"}, true, "key", "value");
+
+        Map<String, Object> reservation = new HashMap<>();
+        reservation.put("id", 7);
+        reservation.put("companyName", "SpaceX");
+        reservation.put("seatNumbers", "3,4");
+        Map<String, Object> withoutSeats = new HashMap<>();
+        withoutSeats.put("id", 8);
+        withoutSeats.put("seatNumbers", null);
+        when(mockDbConn.executeSelectQuery(any(),
+                argThat((String[] tables) -> tables != null && tables[0].equals(DatabaseConnector.RESERVATIONS)),
+                any(), any(), eq(new String[]{"1"}))).thenReturn(List.of(reservation, withoutSeats));
+
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
+        HttpResponse<JsonNode> response = Unirest.get("/reservations/details").queryString(StringNames.customerId, "1")
+                .header(StringNames.authorization, authorization).asJson();
+
+        assertEquals(200, response.getStatus());
+        JSONObject first = response.getBody().getArray().getJSONObject(0);
+        assertEquals(7, first.getInt("id"));
+        assertEquals("SpaceX", first.getString("companyName"));
+        assertEquals(4, first.getJSONArray("seatNumbers").getInt(1));
+        assertEquals(0, response.getBody().getArray().getJSONObject(1).getJSONArray("seatNumbers").length());
+    }
+
+    @Test
+    public void testGetReservationDetailsWithoutAuthorization() {
+        createAndAssignMockObjectSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.RESERVATIONS},
+                null, "customerId = ?", new String[]{"1"}, true, "id", 7);
+
+        HttpResponse<JsonNode> response = Unirest.get("/reservations/details")
+                .queryString(StringNames.customerId, "1").asJson();
+        assertEquals(401, response.getStatus());
+    }
+
     // CREATE RESERVATION
 
     // Sprint 3: the base testing case
@@ -588,13 +906,17 @@ public class RestServerTest {
      * Validates handling of seat numbers and updates to available seats.
      */
     @Test
-    public void testCreateReservationsWithValidAuthorizationAndParameters() {
-        DatabaseConnector mockDbConn = createAndAssignMockObjectInsertQuery(
-                DatabaseConnector.RESERVATIONS,
-                new String[]{"customerId", "flightDateId", "reserved_seats"},
-                new String[]{"1", "2", "9"},
-                true
-        );
+    public void testCreateReservationsWithValidAuthorizationAndParameters() throws SQLException {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        restServer.setDbConnectorAndDataValidator(mockDbConn);
+        DatabaseConnector.Transaction tx = addMockTransaction(mockDbConn);
+
+        // Mock reservation insertion, returning the generated ID
+        when(tx.insert(
+                eq(DatabaseConnector.RESERVATIONS),
+                eq(new String[]{"customerId", "flightDateId", "reserved_seats"}),
+                eq(new String[]{"1", "2", "9"})
+        )).thenReturn(1);
 
         // Mock flight date validation
         addMockSelectQuery(mockDbConn,
@@ -629,39 +951,28 @@ public class RestServerTest {
                 new Object[]{"value"}
         );
 
-        // Mock getting newly created reservation ID
-        addMockSelectQuery(mockDbConn,
-                new String[]{"id"},
-                new String[]{DatabaseConnector.RESERVATIONS},
-                null,
-                "customerId = ? AND flightDateId = ? ORDER BY id DESC LIMIT 1",
-                new String[]{"1", "2"},
-                new String[]{"id"},
-                new Object[]{1}
-        );
-
         // Mock seats update
-        addMockUpdateQuery(mockDbConn,
+        addMockTransactionUpdate(tx,
                 DatabaseConnector.FLIGHT_DATES,
                 new String[]{"available_seats = available_seats - ?"},
                 new String[]{"9"},
                 "id = ?",
                 new String[]{"2"},
-                true
+                1
         );
 
         // Mock tokens update
-        addMockUpdateQuery(mockDbConn,
+        addMockTransactionUpdate(tx,
                 DatabaseConnector.CUSTOMERS,
                 new String[]{"tokens = tokens + ?"},
                 new String[]{"9"},
                 "id = ?",
                 new String[]{"1"},
-                true
+                1
         );
 
-        // Mock seat numbers insertion
-        addMockInsertQuery(mockDbConn,
+        // Mock seat numbers batch insertion
+        addMockTransactionBatchInsert(tx,
                 DatabaseConnector.SEAT_NUMBERS,
                 new String[]{"reservationId", "seat_number"},
                 new String[][]{
@@ -674,8 +985,7 @@ public class RestServerTest {
                         {"1", "7"},
                         {"1", "8"},
                         {"1", "9"}
-                },
-                true
+                }
         );
 
         String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
@@ -692,6 +1002,72 @@ public class RestServerTest {
                 "Reservation created",
                 response.getBody().getObject().getString("message")  
         );
+        assertEquals(1, response.getBody().getObject().getInt("reservationId"));
+    }
+
+    /**
+     * Tests that a reservation sent again with the same idempotency key is
+     * created only once. Verifies that the repeated request gets the stored
+     * response and that the key cannot be used for another request.
+     */
+    @Test
+    public void testCreateReservationWithIdempotencyKeyIsExecutedOnce() throws SQLException {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        restServer.setDbConnectorAndDataValidator(mockDbConn);
+        DatabaseConnector.Transaction tx = addMockTransaction(mockDbConn);
+
+        when(tx.insert(
+                eq(DatabaseConnector.RESERVATIONS),
+                eq(new String[]{"customerId", "flightDateId", "reserved_seats"}),
+                eq(new String[]{"1", "2", "2"})
+        )).thenReturn(1);
+
+        addMockSelectQuery(mockDbConn,
+                new String[]{"*"},
+                new String[]{DatabaseConnector.FLIGHT_DATES},
+                null,
+                "id = ?",
+                new String[]{"2"},
+                new String[]{"available_seats"},
+                new Object[]{100}
+        );
+
+        addMockSelectQuery(mockDbConn,
+                new String[]{"*"},
+                new String[]{DatabaseConnector.CUSTOMERS},
+                null,
+                "id = ? and email = ? and password = ?",
+                new String[]{"1", "email@test.de", "testPassword"},
+                new String[]{"key"},
+                new Object[]{"value"}
+        );
+
+        String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
+        HttpResponse<JsonNode> response = null;
+        for (int i = 0; i < 2; i++) {
+            response = Unirest.post("/reservation/create")
+                    .queryString(StringNames.customerId, "1")
+                    .queryString(StringNames.flightDateId, "2")
+                    .queryString(StringNames.reservedSeats, "2")
+                    .queryString(StringNames.seatNumbers, "1,2")
+                    .header(StringNames.authorization, authorization)
+                    .header(StringNames.idempotencyKey, "create-1")
+                    .asJson();
+            assertEquals(201, response.getStatus());
+            assertEquals(1, response.getBody().getObject().getInt("reservationId"));
+        }
+        assertEquals("true", response.getHeaders().getFirst(StringNames.idempotentReplayed));
+        verify(tx, times(1)).insert(eq(DatabaseConnector.RESERVATIONS), any(), any());
+
+        response = Unirest.post("/reservation/create")
+                .queryString(StringNames.customerId, "1")
+                .queryString(StringNames.flightDateId, "2")
+                .queryString(StringNames.reservedSeats, "1")
+                .queryString(StringNames.seatNumbers, "3")
+                .header(StringNames.authorization, authorization)
+                .header(StringNames.idempotencyKey, "create-1")
+                .asJson();
+        assertEquals(422, response.getStatus());
     }
 
     // MODIFY RESERVATION
@@ -703,7 +1079,7 @@ public class RestServerTest {
      * Verifies seat number updates, available seat counts, and authorization.
      */
     @Test
-    public void testModifyReservationsWithValidAuthorizationAndParameters() {
+    public void testModifyReservationsWithValidAuthorizationAndParameters() throws SQLException {
         DatabaseConnector mockDbConn = createAndAssignMockObjectSelectQuery(
                 new String[]{"*"},
                 new String[]{DatabaseConnector.CUSTOMERS},
@@ -748,42 +1124,36 @@ public class RestServerTest {
                 new Object[]{100}
         );
 
+        DatabaseConnector.Transaction tx = addMockTransaction(mockDbConn);
+
         // Mock update queries
-        addMockUpdateQuery(mockDbConn,
+        addMockTransactionUpdate(tx,
                 DatabaseConnector.RESERVATIONS,
                 new String[]{"reserved_seats = ?"},
                 new String[]{"8"},
                 "id = ?",
                 new String[]{"1"},
-                true
+                1
         );
 
-        addMockUpdateQuery(mockDbConn,
+        addMockTransactionUpdate(tx,
                 DatabaseConnector.FLIGHT_DATES,
                 new String[]{"available_seats = available_seats + ?"},
                 new String[]{"-3"},
                 "id = ?",
                 new String[]{"3"},
-                true
+                1
         );
 
         // Mock seat numbers deletion and insertion
-        addMockDeleteQuery(mockDbConn,
+        addMockTransactionDelete(tx,
                 DatabaseConnector.SEAT_NUMBERS,
                 "reservationId = ?",
                 new String[]{"1"},
-                true
+                5
         );
 
-        // Mock seat numbers deletion
-        addMockDeleteQuery(mockDbConn,
-                DatabaseConnector.SEAT_NUMBERS,
-                "reservationId = ?",
-                new String[]{"1"},
-                true
-        );
-        
-        addMockInsertQuery(mockDbConn,
+        addMockTransactionBatchInsert(tx,
                 DatabaseConnector.SEAT_NUMBERS,
                 new String[]{"reservationId", "seat_number"},
                 new String[][]{
@@ -795,8 +1165,7 @@ public class RestServerTest {
                         {"1", "6"},
                         {"1", "7"},
                         {"1", "8"}
-                },
-                true
+                }
         );
 
         String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
@@ -839,7 +1208,7 @@ public class RestServerTest {
     // Sprint 4: Using new overloaded method of select query to fetch new Reservation data model
     // with all query parameters
     @Test
-    public void testDeleteReservationsWithValidAuthorizationAndParameters() {
+    public void testDeleteReservationsWithValidAuthorizationAndParameters() throws SQLException {
         Map<String, Object> reservationFields = new HashMap<>();
         reservationFields.put("customerId", 2);
         reservationFields.put("reserved_seats", 5);
@@ -880,24 +1249,26 @@ public class RestServerTest {
             new Object[]{5, 3}
         );
 
+        DatabaseConnector.Transaction tx = addMockTransaction(mockDbConn);
+
         // Mock delete query
-        addMockDeleteQuery(
-            mockDbConn,
+        addMockTransactionDelete(
+            tx,
             DatabaseConnector.RESERVATIONS,
             "id = ?",
             new String[]{"1"},
-            true
+            1
         );
 
         // Mock update available seats
-        addMockUpdateQuery(
-            mockDbConn,
+        addMockTransactionUpdate(
+            tx,
             DatabaseConnector.FLIGHT_DATES,
             new String[]{"available_seats = available_seats + ?"},
             new String[]{"5"},
             "id = ?",
             new String[]{"3"},
-            true
+            1
         );
 
         String authorization = "Basic " + Base64.getEncoder().encodeToString("email@test.de:testPassword".getBytes());
@@ -1218,6 +1589,71 @@ public class RestServerTest {
                 response.getBody().getArray().getString(0));
     }
 
+    // SCHEDULE BY CALENDAR DATE REQUESTS
+    @Test
+    public void testGetSchedulesByCalendarDate() {
+        Map<String, Object> resultMap = new HashMap<>();
+        resultMap.put("flightName", "Test Flight");
+        resultMap.put("flight_duration", 120);
+        resultMap.put("view_type", "Europe");
+        resultMap.put("companyName", "Test Company");
+        resultMap.put("launch_time", "14:00");
+        resultMap.put("available_seats", 1);
+        resultMap.put("flightDateId", 1);
+        resultMap.put("companyId", 1);
+        resultMap.put("flightId", 1);
+        createAndAssignMockObjectSelectQuery(
+                new String[]{
+                        "f.name as flightName",
+                        "f.flight_duration",
+                        "f.view_type",
+                        "c.name as companyName",
+                        "fs.launch_time",
+                        "fd.available_seats",
+                        "fd.id as flightDateId",
+                        "c.id as companyId",
+                        "f.id as flightId"
+                },
+                new String[]{
+                        DatabaseConnector.FLIGHTS,
+                        DatabaseConnector.COMPANIES,
+                        DatabaseConnector.FLIGHT_SCHEDULES,
+                        DatabaseConnector.FLIGHT_DATES,
+                        DatabaseConnector.DATES
+                },
+                new String[]{"f", "c", "fs", "fd", "d"},
+                "d.date = ? AND fd.dateId = d.id AND fd.flightScheduleId = fs.id " +
+                        "AND fs.flightId = f.id AND fs.companyId = c.id " +
+                        "AND fd.available_seats > 0 " +
+                        "AND (d.date > CURDATE() OR (d.date = CURDATE() AND fs.launch_time > CURTIME()))",
+                new String[]{"2025-03-22"},
+                true,
+                resultMap
+        );
+
+        HttpResponse<JsonNode> response = Unirest.get("/schedules/by-calendar-date")
+                .queryString("date", "2025-03-22")
+                .asJson();
+
+        assertEquals(200, response.getStatus());
+        JSONObject result = response.getBody().getArray().getJSONObject(0);
+        assertEquals("Test Flight", result.getString("flightName"));
+        assertEquals(1, result.getInt("flightDateId"));
+    }
+
+    @Test
+    public void testGetSchedulesByCalendarDateWithInvalidDate() {
+        HttpResponse<JsonNode> response = Unirest.get("/schedules/by-calendar-date").asJson();
+        assertEquals(400, response.getStatus());
+        assertEquals("Date is required", response.getBody().getArray().getString(0));
+
+        response = Unirest.get("/schedules/by-calendar-date")
+                .queryString("date", "22.03.2025")
+                .asJson();
+        assertEquals(400, response.getStatus());
+        assertEquals("Invalid date format. Must be yyyy-MM-dd", response.getBody().getArray().getString(0));
+    }
+
     // --------------------------------
     // Requirement 1
     // DATES WITH FLIGHTS REQUESTS
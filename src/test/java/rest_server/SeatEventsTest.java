@@ -0,0 +1,97 @@
+package rest_server;
+
+import com.google.gson.Gson;
+import io.javalin.http.sse.SseClient;
+import model.DatabaseConnector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import utils.StringNames;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SeatEventsTest {
+
+    private static final long TIMEOUT_MILLIS = 1000;
+
+    private SeatInventory seatInventory;
+    private SeatEvents seatEvents;
+
+    //Creates an inventory whose flight dates 1 and 2 have 100 free seats each and sends its changes as events.
+    @BeforeEach
+    public void createSeatEvents() {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        for (int id = 1; id <= 2; id++) {
+            Map<String, Object> flightDate = new HashMap<>();
+            flightDate.put("available_seats", 100);
+            when(mockDbConn.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHT_DATES}, null,
+                    "id = ?", new String[]{String.valueOf(id)})).thenReturn(List.of(flightDate));
+        }
+        seatInventory = new SeatInventory(mockDbConn);
+        seatEvents = new SeatEvents(seatInventory, new Gson());
+        seatInventory.addListener(seatEvents);
+    }
+
+    @AfterEach
+    public void closeSeatEvents() {
+        seatEvents.close();
+    }
+
+    @Test
+    public void testSubscriberGetsTakenSeatsAndChanges() {
+        seatInventory.hold(1, 1, List.of(3)).commit();
+        SseClient client = mock(SseClient.class);
+        seatEvents.subscribe(1, client);
+        verify(client, timeout(TIMEOUT_MILLIS)).sendEvent(StringNames.seatsEvent, "{\"flightDateId\":1,\"seats\":[3]}");
+
+        SeatInventory.SeatHold hold = seatInventory.hold(1, 2, List.of(5, 6));
+        verify(client, timeout(TIMEOUT_MILLIS))
+                .sendEvent(StringNames.seatTakenEvent, "{\"flightDateId\":1,\"seats\":[5,6]}");
+        hold.cancel();
+        verify(client, timeout(TIMEOUT_MILLIS))
+                .sendEvent(StringNames.seatReleasedEvent, "{\"flightDateId\":1,\"seats\":[5,6]}");
+
+        //changes of other flight dates are not sent
+        seatInventory.hold(2, 1, List.of(9)).commit();
+        seatInventory.hold(1, 1, List.of(10)).commit();
+        verify(client, timeout(TIMEOUT_MILLIS))
+                .sendEvent(StringNames.seatTakenEvent, "{\"flightDateId\":1,\"seats\":[10]}");
+        verify(client, never()).sendEvent(anyString(), eq("{\"flightDateId\":2,\"seats\":[9]}"));
+    }
+
+    @Test
+    public void testClosedClientIsUnsubscribed() {
+        SseClient client = mock(SseClient.class);
+        seatEvents.subscribe(1, client);
+        assertEquals(1, seatEvents.getSubscriberCount(1));
+
+        ArgumentCaptor<Runnable> onClose = ArgumentCaptor.forClass(Runnable.class);
+        verify(client).onClose(onClose.capture());
+        onClose.getValue().run();
+        assertEquals(0, seatEvents.getSubscriberCount(1));
+    }
+
+    @Test
+    public void testFailingClientIsClosed() {
+        SseClient client = mock(SseClient.class);
+        doThrow(new IllegalStateException("closed")).when(client).sendEvent(anyString(), any());
+        seatEvents.subscribe(1, client);
+
+        verify(client, timeout(TIMEOUT_MILLIS)).close();
+        assertEquals(0, seatEvents.getSubscriberCount(1));
+    }
+}
@@ -0,0 +1,233 @@
+package rest_server;
+
+import model.DatabaseConnector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SeatInventoryTest {
+
+    private static final int SEATS_PER_FLIGHT = 100;
+    private static final int HIGHEST_SEAT_NUMBER = 150;
+
+    private SeatInventory seatInventory;
+
+    //Creates an inventory whose flight dates 1 to 4 have 100 free seats each.
+    @BeforeEach
+    public void createInventory() {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        for (int id = 1; id <= 4; id++) {
+            Map<String, Object> flightDate = new HashMap<>();
+            flightDate.put("available_seats", SEATS_PER_FLIGHT);
+            when(mockDbConn.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHT_DATES}, null,
+                    "id = ?", new String[]{String.valueOf(id)})).thenReturn(List.of(flightDate));
+        }
+        seatInventory = new SeatInventory(mockDbConn);
+    }
+
+    @Test
+    public void testHoldTakesSeats() {
+        SeatInventory.SeatHold hold = seatInventory.hold(1, 2, List.of(5, 7));
+        assertTrue(hold.isHeld());
+        hold.commit();
+
+        assertEquals(SEATS_PER_FLIGHT - 2, seatInventory.getAvailableSeats(1));
+        assertEquals(List.of(5, 7), seatInventory.getTakenSeats(1));
+        BitSet bitmap = seatInventory.getTakenSeatBitmap(1);
+        assertEquals(2, bitmap.cardinality());
+        assertTrue(bitmap.get(5) && bitmap.get(7));
+        //the bitmap is a copy
+        bitmap.set(1);
+        assertEquals(List.of(5, 7), seatInventory.getTakenSeats(1));
+        assertTrue(seatInventory.getTakenSeatBitmap(999).isEmpty());
+        assertTrue(seatInventory.getTakenSeatBitmap(2).isEmpty());
+    }
+
+    @Test
+    public void testHoldRejectsTakenAndDuplicateSeats() {
+        seatInventory.hold(1, 1, List.of(3)).commit();
+
+        assertEquals(SeatInventory.SeatHold.Status.SEAT_TAKEN, seatInventory.hold(1, 2, List.of(4, 3)).getStatus());
+        assertEquals(SeatInventory.SeatHold.Status.SEAT_TAKEN, seatInventory.hold(1, 2, List.of(8, 8)).getStatus());
+
+        //a rejected hold leaves no seats behind
+        assertEquals(List.of(3), seatInventory.getTakenSeats(1));
+        assertEquals(SEATS_PER_FLIGHT - 1, seatInventory.getAvailableSeats(1));
+    }
+
+    @Test
+    public void testHoldRejectsTooManySeatsAndUnknownFlightDates() {
+        assertEquals(SeatInventory.SeatHold.Status.NOT_ENOUGH_SEATS,
+                seatInventory.hold(1, SEATS_PER_FLIGHT + 1, List.of()).getStatus());
+        assertEquals(SeatInventory.SeatHold.Status.UNKNOWN_FLIGHT_DATE,
+                seatInventory.hold(999, 1, List.of(1)).getStatus());
+    }
+
+    @Test
+    public void testHoldRejectsSeatNumbersAboveCapacity() {
+        assertEquals(SEATS_PER_FLIGHT, seatInventory.getCapacity(1));
+        assertEquals(-1, seatInventory.getCapacity(999));
+        assertEquals(SeatInventory.SeatHold.Status.INVALID_SEAT_NUMBER,
+                seatInventory.hold(1, 2, List.of(5, SEATS_PER_FLIGHT + 1)).getStatus());
+        assertEquals(SeatInventory.SeatHold.Status.INVALID_SEAT_NUMBER,
+                seatInventory.hold(1, 1, List.of(2_000_000_000)).getStatus());
+        assertEquals(SeatInventory.SeatHold.Status.INVALID_SEAT_NUMBER,
+                seatInventory.hold(1, 1, List.of(0)).getStatus());
+
+        //a rejected hold leaves no seats behind and does not grow the bitmap
+        assertTrue(seatInventory.getTakenSeats(1).isEmpty());
+        assertTrue(seatInventory.getTakenSeatBitmap(1).size() <= SEATS_PER_FLIGHT + 64);
+        assertEquals(SEATS_PER_FLIGHT, seatInventory.getAvailableSeats(1));
+        assertTrue(seatInventory.hold(1, 1, List.of(SEATS_PER_FLIGHT)).isHeld());
+    }
+
+    @Test
+    public void testSeatNumbersMustMatchReservedSeats() {
+        assertTrue(seatInventory.matchesReservedSeats(1, 2, List.of(1, 2)));
+        assertFalse(seatInventory.matchesReservedSeats(1, 3, List.of(1, 2)));
+        assertFalse(seatInventory.matchesReservedSeats(1, 1, List.of(1, 2)));
+        assertFalse(seatInventory.matchesReservedSeats(1, 2, List.of(4, 4)));
+        assertFalse(seatInventory.matchesReservedSeats(1, 1, List.of(SEATS_PER_FLIGHT + 1)));
+        //an unknown flight date is left to the hold
+        assertTrue(seatInventory.matchesReservedSeats(999, 1, List.of(SEATS_PER_FLIGHT + 1)));
+    }
+
+    @Test
+    public void testCapacityIncludesTakenSeats() {
+        DatabaseConnector mockDbConn = mock(DatabaseConnector.class);
+        Map<String, Object> flightDate = new HashMap<>();
+        flightDate.put("available_seats", 8);
+        when(mockDbConn.executeSelectQuery(new String[]{"*"}, new String[]{DatabaseConnector.FLIGHT_DATES}, null,
+                "id = ?", new String[]{"1"})).thenReturn(List.of(flightDate));
+        when(mockDbConn.executeSelectQuery(new String[]{"sn.seat_number"},
+                new String[]{"seat_numbers sn JOIN reservations r ON sn.reservationId = r.id"}, null,
+                "r.flightDateId = ?", new String[]{"1"}))
+                .thenReturn(List.of(Map.of("seat_number", 1), Map.of("seat_number", 12)));
+        SeatInventory inventory = new SeatInventory(mockDbConn);
+
+        //8 available and 2 taken seats, but seat 12 is taken already
+        assertEquals(12, inventory.getCapacity(1));
+        assertTrue(inventory.hold(1, 1, List.of(11)).isHeld());
+        assertEquals(SeatInventory.SeatHold.Status.INVALID_SEAT_NUMBER,
+                inventory.hold(1, 1, List.of(13)).getStatus());
+    }
+
+    @Test
+    public void testCancelAndReleaseGiveSeatsBack() {
+        SeatInventory.SeatHold hold = seatInventory.hold(1, 2, List.of(1, 2));
+        hold.cancel();
+        //cancelling twice or committing afterwards changes nothing
+        hold.cancel();
+        hold.commit();
+        assertEquals(SEATS_PER_FLIGHT, seatInventory.getAvailableSeats(1));
+        assertTrue(seatInventory.getTakenSeats(1).isEmpty());
+
+        seatInventory.hold(1, 2, List.of(1, 2)).commit();
+        seatInventory.release(1, 2, List.of(1, 2));
+        assertEquals(SEATS_PER_FLIGHT, seatInventory.getAvailableSeats(1));
+        assertTrue(seatInventory.getTakenSeats(1).isEmpty());
+    }
+
+    @Test
+    public void testReleaseOnlyUpdatesLoadedFlightDates() {
+        AtomicInteger changes = new AtomicInteger();
+        seatInventory.addListener((flightDateId, availableSeats) -> changes.incrementAndGet());
+        seatInventory.release(2, 1, List.of());
+        assertEquals(0, changes.get());
+
+        assertTrue(seatInventory.ensureLoaded(2));
+        assertFalse(seatInventory.ensureLoaded(999));
+        seatInventory.release(2, 1, List.of());
+        assertEquals(1, changes.get());
+        assertEquals(SEATS_PER_FLIGHT + 1, seatInventory.getAvailableSeats(2));
+    }
+
+    //Fires thousands of parallel bookings at one flight date and checks that no seat is sold twice
+    //and no more seats are sold than available.
+    @Test
+    public void testParallelBookingsNeverOversell() throws Exception {
+        int bookings = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Integer> soldSeatNumbers = ConcurrentHashMap.newKeySet();
+        AtomicInteger soldSeats = new AtomicInteger();
+        AtomicInteger doubleSold = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            Random random = new Random(i);
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<Integer> seatNumbers = new ArrayList<>();
+                int seats = 1 + random.nextInt(3);
+                while (seatNumbers.size() < seats) {
+                    int seatNumber = 1 + random.nextInt(HIGHEST_SEAT_NUMBER);
+                    if (!seatNumbers.contains(seatNumber)) {
+                        seatNumbers.add(seatNumber);
+                    }
+                }
+                SeatInventory.SeatHold hold = seatInventory.hold(1, seats, seatNumbers);
+                if (!hold.isHeld()) {
+                    return null;
+                }
+                //every fifth booking fails to be stored and gives its seats back
+                if (random.nextInt(5) == 0) {
+                    hold.cancel();
+                    return null;
+                }
+                for (int seatNumber : seatNumbers) {
+                    if (!soldSeatNumbers.add(seatNumber)) {
+                        doubleSold.incrementAndGet();
+                    }
+                }
+                soldSeats.addAndGet(seats);
+                hold.commit();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(0, doubleSold.get());
+        assertTrue(soldSeats.get() <= SEATS_PER_FLIGHT);
+        assertEquals(SEATS_PER_FLIGHT - soldSeats.get(), seatInventory.getAvailableSeats(1));
+        assertEquals(new TreeSet<>(soldSeatNumbers), new TreeSet<>(seatInventory.getTakenSeats(1)));
+    }
+
+    //Bookings of different flight dates run in parallel and do not affect each other.
+    @Test
+    public void testParallelBookingsOnDifferentFlightDates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int flightDateId = 1; flightDateId <= 4; flightDateId++) {
+            for (int seatNumber = 1; seatNumber <= SEATS_PER_FLIGHT; seatNumber++) {
+                int id = flightDateId;
+                int seat = seatNumber;
+                futures.add(executor.submit(() -> {
+                    SeatInventory.SeatHold hold = seatInventory.hold(id, 1, List.of(seat));
+                    hold.commit();
+                    return hold.isHeld();
+                }));
+            }
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        for (int flightDateId = 1; flightDateId <= 4; flightDateId++) {
+            assertEquals(0, seatInventory.getAvailableSeats(flightDateId));
+            assertEquals(SEATS_PER_FLIGHT, seatInventory.getTakenSeats(flightDateId).size());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package rest_server;
+
+import model.ConnectionPool;
+import model.DatabaseConnector;
+import model.StubConnectionFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load benchmark that compares handling requests on platform threads with
+ * handling them on virtual threads. <br>
+ * <br>
+ * The database is simulated by a stub driver behind the real
+ * {@link ConnectionPool}: every query blocks for a fixed time, at most as many
+ * queries run at once as the pool has connections, and queries beyond the
+ * waiting limit are shed like in production. Many clients then request
+ * <code>/schedules?flightDateId=1</code> at the same time. With platform
+ * threads at most as many requests as the server has threads can wait for the
+ * database, so throughput is bounded by the thread pool; with virtual threads
+ * it is bounded by the database and the waiting limit. <br>
+ * <br>
+ * Run with the main method on Java 21 or newer. Optional arguments: number of
+ * requests, concurrent clients, pooled connections, milliseconds per query,
+ * waiting queries before further ones are shed.
+ */
+public class ServerModeLoadBenchmark {
+
+    private static final int PORT = 4570;
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int queryMillis = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        int maxWaiting = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            StubConnectionFactory factory = new StubConnectionFactory(new String[]{"id", "available_seats"},
+                    new Object[]{1, 100}, queryMillis);
+            DatabaseConnector dbConnector = new DatabaseConnector(new ConnectionPool(factory, connections,
+                    connections, ConnectionPool.DEFAULT_BORROW_TIMEOUT_MILLIS,
+                    ConnectionPool.DEFAULT_IDLE_TIMEOUT_MILLIS, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE));
+            dbConnector.setMaxWaitingQueries(maxWaiting);
+            RestServer server = new RestServer(dbConnector, new DataValidation(dbConnector), PORT,
+                    CatalogCache.DEFAULT_REFRESH_INTERVAL_MILLIS, virtualThreads);
+            try {
+                // warm up the server and the client before measuring
+                run(requests / 10, clients);
+                long[] latencies = run(requests, clients);
+                report(server.isUsingVirtualThreads() ? "virtual threads" : "platform threads", latencies);
+                System.out.printf("at most %d queries ran at once%n", factory.getMaxRunningQueries());
+            } finally {
+                server.stopServer();
+                dbConnector.close();
+            }
+        }
+    }
+
+    //Sends the requests with the given number of clients and returns the latency of each request in nanoseconds.
+    private static long[] run(int requests, int clients) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/schedules?flightDateId=1"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        Semaphore inFlight = new Semaphore(clients);
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            futures[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(futures).handle((result, error) -> null).get(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%d requests in %.2f s (%.0f requests/s), %d failed%n", requests,
+                elapsed / 1e9, requests / (elapsed / 1e9), failures.get());
+        return latencies;
+    }
+
+    private static void report(String mode, long[] latencies) {
+        Arrays.sort(latencies);
+        System.out.printf("%-16s p50 %6.1f ms   p99 %6.1f ms   max %6.1f ms%n", mode,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,126 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares matching the dates of the server with a calendar date like
+ * {@link Utils#datesMatch(String, String)} did before, with new
+ * <code>SimpleDateFormat</code>s on every call, with the cached
+ * <code>java.time</code> lookup. Every operation checks one calendar date
+ * against all dates of the server, which is what rendering one cell of the
+ * date picker costs. <br>
+ * <br>
+ * Run with the main method; the GC profiler reports the bytes allocated per
+ * operation (<code>gc.alloc.rate.norm</code>).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParsingBenchmark {
+
+    @Param({"10", "100"})
+    public int dates;
+
+    private final List<String> serverDates = new ArrayList<>();
+    private String cellDate;
+    private LocalDate cellLocalDate;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DateParsingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Setup
+    public void setUp() {
+        LocalDate first = LocalDate.of(2025, 3, 1);
+        for (int i = 0; i < dates; i++) {
+            serverDates.add(first.plusDays(i).toString());
+        }
+        // not among the dates, so every date is compared
+        cellLocalDate = first.minusDays(1);
+        cellDate = cellLocalDate.toString();
+    }
+
+    @Benchmark
+    public boolean simpleDateFormatPerCall() {
+        for (String serverDate : serverDates) {
+            if (formerDatesMatch(serverDate, cellDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean cachedStringDates() {
+        for (String serverDate : serverDates) {
+            if (Utils.datesMatch(serverDate, cellDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean cachedLocalDate() {
+        for (String serverDate : serverDates) {
+            if (Utils.datesMatch(serverDate, cellLocalDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Utils.datesMatch as it was before it used java.time.
+    private static boolean formerDatesMatch(String serverDate, String targetDate) {
+        List<SimpleDateFormat> dateFormats = new ArrayList<>();
+        dateFormats.add(new SimpleDateFormat("yyyy-MM-dd"));
+        dateFormats.add(new SimpleDateFormat("M月 dd, yyyy", Locale.CHINESE));
+        dateFormats.add(new SimpleDateFormat("yyyy年M月d日", Locale.CHINESE));
+
+        Date targetDateTime;
+        try {
+            targetDateTime = new SimpleDateFormat("yyyy-MM-dd").parse(targetDate);
+        } catch (ParseException e) {
+            return false;
+        }
+        for (SimpleDateFormat format : dateFormats) {
+            try {
+                if (format.parse(serverDate).equals(targetDateTime)) {
+                    return true;
+                }
+            } catch (ParseException e) {
+                // continue with the next format
+            }
+        }
+        return false;
+    }
+}
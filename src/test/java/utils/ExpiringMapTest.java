@@ -0,0 +1,74 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringMapTest {
+
+    @Test
+    public void testEntriesExpire() {
+        AtomicLong now = new AtomicLong();
+        ExpiringMap<String, String> map = new ExpiringMap<>(10, now::get);
+        map.put("short", "1", 1000);
+        map.put("long", "2", 2000);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertEquals("1", map.get("short"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertNull(map.get("short"));
+        assertEquals("2", map.get("long"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsDropped() {
+        ExpiringMap<String, String> map = new ExpiringMap<>(2);
+        map.put("1", "1", 1000);
+        map.put("2", "2", 1000);
+        //makes key 1 the most recently used entry
+        assertEquals("1", map.get("1"));
+        map.put("3", "3", 1000);
+
+        assertEquals(2, map.size());
+        assertEquals("1", map.get("1"));
+        assertNull(map.get("2"));
+        assertEquals("3", map.get("3"));
+    }
+
+    @Test
+    public void testRemove() {
+        ExpiringMap<String, String> map = new ExpiringMap<>(10);
+        map.put("1:a", "1", 1000);
+        map.put("12:a", "2", 1000);
+        map.put("2:a", "3", 1000);
+
+        map.removeIf(key -> key.startsWith("1:"));
+        map.remove("2:a");
+        assertEquals(1, map.size());
+        assertEquals("2", map.get("12:a"));
+
+        map.clear();
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testNothingIsKeptWithoutEntries() {
+        ExpiringMap<String, String> map = new ExpiringMap<>(0);
+        map.put("1", "1", 1000);
+        assertNull(map.get("1"));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testHash() {
+        String hash = ExpiringMap.hash("Basic ZW1haWxAdGVzdC5kZTp0ZXN0UGFzc3dvcmQ=");
+        assertEquals(hash, ExpiringMap.hash("Basic ZW1haWxAdGVzdC5kZTp0ZXN0UGFzc3dvcmQ="));
+        assertNotEquals(hash, ExpiringMap.hash("Basic other"));
+        assertFalse(hash.contains("ZW1haWxAdGVzdC5kZTp0ZXN0UGFzc3dvcmQ"));
+    }
+}
@@ -10,6 +10,7 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.List;
 
@@ -121,6 +122,31 @@ public class UtilsTest {
         assertNull(converted);
     }
 
+    @Test
+    public void testParseServerDate() {
+        LocalDate expected = LocalDate.of(2025, 3, 22);
+        assertEquals(expected, Utils.parseServerDate("2025-03-22"));
+        assertEquals(expected, Utils.parseServerDate("Mar 22, 2025"));
+        assertEquals(expected, Utils.parseServerDate("3月 22, 2025"));
+        assertEquals(expected, Utils.parseServerDate("2025年3月22日"));
+        //the same string is parsed only once
+        assertSame(Utils.parseServerDate("2025-03-22"), Utils.parseServerDate("2025-03-22"));
+
+        assertNull(Utils.parseServerDate(null));
+        assertNull(Utils.parseServerDate(""));
+        assertNull(Utils.parseServerDate("22.03.2025"));
+    }
+
+    @Test
+    public void testDatesMatch() {
+        assertTrue(Utils.datesMatch("Mar 22, 2025", "2025-03-22"));
+        assertTrue(Utils.datesMatch("2025-03-22", LocalDate.of(2025, 3, 22)));
+        assertFalse(Utils.datesMatch("Mar 23, 2025", "2025-03-22"));
+        assertFalse(Utils.datesMatch("invalid", "2025-03-22"));
+        assertFalse(Utils.datesMatch("2025-03-22", "invalid"));
+        assertFalse(Utils.datesMatch("2025-03-22", (LocalDate) null));
+    }
+
     @Test
     public void testParseStringDate() {
         SimpleDateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy");
@@ -197,6 +223,22 @@ public class UtilsTest {
         }
     }
 
+    @Test
+    public void testSeatBitmap() {
+        BitSet seats = new BitSet();
+        seats.set(1);
+        seats.set(8);
+        seats.set(100);
+        String bitmap = Utils.encodeSeatBitmap(seats);
+        assertEquals(20, bitmap.length());
+        assertEquals(seats, Utils.decodeSeatBitmap(bitmap));
+
+        assertEquals("", Utils.encodeSeatBitmap(new BitSet()));
+        assertTrue(Utils.decodeSeatBitmap("").isEmpty());
+        assertNull(Utils.decodeSeatBitmap("not base64!"));
+        assertNull(Utils.decodeSeatBitmap(null));
+    }
+
     @Test
     public void testIsValidEmailAddress() {
         String[] correctEmails = {"firstname.lastname@gmail.com", "a.b@web.de", "a@web.de"};